@@ -0,0 +1,35 @@
+package net.exsource.openutils.benchmark;
+
+import net.exsource.openutils.tools.Commons;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommonsBenchmark {
+
+    private final Object number = 42L;
+    private final Object text = "true";
+
+    @Benchmark
+    public Integer castNumberToInteger() {
+        return Commons.cast(number, Integer.class);
+    }
+
+    @Benchmark
+    public Long castSameType() {
+        return Commons.cast(number, Long.class);
+    }
+
+    @Benchmark
+    public Boolean castStringToBoolean() {
+        return Commons.cast(text, Boolean.class);
+    }
+}
@@ -0,0 +1,121 @@
+package net.exsource.openutils.benchmark;
+
+import net.exsource.openutils.event.Cancelable;
+import net.exsource.openutils.event.Event;
+import net.exsource.openutils.event.EventHandler;
+import net.exsource.openutils.event.EventManager;
+import net.exsource.openutils.event.EventPriority;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventDispatchBenchmark {
+
+    private BenchmarkListener listener;
+    private BenchmarkEvent event;
+    private IdleEvent idle;
+    private List<BenchmarkEvent> burst;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        listener = new BenchmarkListener();
+        EventManager.registerListener(listener);
+        event = new BenchmarkEvent();
+        idle = new IdleEvent();
+        burst = new ArrayList<>();
+        for(int i = 0; i < 1000; i++) {
+            burst.add(new BenchmarkEvent());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        EventManager.unregisterListener(listener);
+    }
+
+    @Benchmark
+    public BenchmarkEvent callReturnedEvent() {
+        event.setCancelled(false);
+        return EventManager.callReturnedEvent(event);
+    }
+
+    @Benchmark
+    public IdleEvent callReturnedEventWithoutHandlers() {
+        return EventManager.callReturnedEvent(idle);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void callEventsBurst(Blackhole blackhole) {
+        EventManager.callEvents(burst);
+        blackhole.consume(listener.calls);
+    }
+
+    public static class BenchmarkEvent implements Event, Cancelable {
+
+        private boolean cancelled;
+        private long value;
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void setCancelled(boolean cancelled) {
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public String getName() {
+            return "BenchmarkEvent";
+        }
+    }
+
+    public static class IdleEvent implements Event {
+
+        @Override
+        public String getName() {
+            return "IdleEvent";
+        }
+    }
+
+    public static class BenchmarkListener {
+
+        private long calls;
+
+        @EventHandler(priority = EventPriority.HIGHEST)
+        public void onHighest(BenchmarkEvent event) {
+            event.value++;
+        }
+
+        @EventHandler
+        public void onModerate(BenchmarkEvent event) {
+            calls++;
+        }
+
+        @EventHandler(priority = EventPriority.LOW)
+        public void onLow(BenchmarkEvent event) {
+            event.value--;
+        }
+
+        @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
+        public void onLowest(BenchmarkEvent event) {
+            calls++;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package net.exsource.openutils.benchmark;
+
+import net.exsource.openutils.io.controller.IniController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IniControllerBenchmark {
+
+    @Param({"100", "10000"})
+    public int entries;
+
+    private String content;
+    private File file;
+    private IniController loaded;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        StringBuilder builder = new StringBuilder("; generated benchmark file\n");
+        for(int i = 0; i < entries; i++) {
+            if(i % 50 == 0) {
+                builder.append("[section-").append(i / 50).append("]\n");
+            }
+            switch (i % 5) {
+                case 0 -> builder.append("number-").append(i).append(" = ").append(i).append('\n');
+                case 1 -> builder.append("decimal-").append(i).append(" = ").append(i).append(".5\n");
+                case 2 -> builder.append("quoted-").append(i).append(" = \"value ").append(i).append("\"\n");
+                case 3 -> builder.append("escaped-").append(i).append(" = tab\\tand\\#hash ; comment\n");
+                default -> builder.append("plain-").append(i).append(" = some plain value ").append(i).append('\n');
+            }
+        }
+        content = builder.toString();
+        file = File.createTempFile("open-utils-benchmark", ".ini");
+        Files.writeString(file.toPath(), content, StandardCharsets.UTF_8);
+
+        loaded = new IniController();
+        loaded.load(content);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public IniController loadString() throws IOException {
+        IniController controller = new IniController();
+        controller.load(content);
+        return controller;
+    }
+
+    @Benchmark
+    public IniController loadFile() throws IOException {
+        IniController controller = new IniController();
+        controller.load(file);
+        return controller;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Integer getValueWithoutSection() {
+        return loaded.getValue("number-" + (entries - 5), Integer.class);
+    }
+}
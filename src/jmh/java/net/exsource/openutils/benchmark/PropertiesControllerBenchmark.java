@@ -0,0 +1,66 @@
+package net.exsource.openutils.benchmark;
+
+import net.exsource.openutils.io.controller.PropertiesController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PropertiesControllerBenchmark {
+
+    @Param({"100", "10000"})
+    public int entries;
+
+    private String content;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        StringBuilder builder = new StringBuilder("# generated benchmark file\n");
+        for(int i = 0; i < entries; i++) {
+            switch (i % 4) {
+                case 0 -> builder.append("feature.flag.").append(i).append(" = true\n");
+                case 1 -> builder.append("i18n.message.").append(i).append(" = Hello \\\"World\\\" ").append(i).append('\n');
+                case 2 -> builder.append("list.").append(i).append(" = [\"a\", \"b\", \"c\"]\n");
+                default -> builder.append("number.").append(i).append(" = ").append(i).append('\n');
+            }
+        }
+        content = builder.toString();
+        file = File.createTempFile("open-utils-benchmark", ".properties");
+        Files.writeString(file.toPath(), content, StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public PropertiesController loadString() throws IOException {
+        PropertiesController controller = new PropertiesController();
+        controller.load(content);
+        return controller;
+    }
+
+    @Benchmark
+    public PropertiesController loadFile() throws IOException {
+        PropertiesController controller = new PropertiesController();
+        controller.load(file);
+        return controller;
+    }
+}
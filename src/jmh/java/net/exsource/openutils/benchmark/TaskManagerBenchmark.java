@@ -0,0 +1,47 @@
+package net.exsource.openutils.benchmark;
+
+import net.exsource.openutils.task.Task;
+import net.exsource.openutils.task.TaskManager;
+import net.exsource.openutils.task.TaskTimer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskManagerBenchmark {
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        TaskManager.cleanup();
+    }
+
+    /**
+     * Schedules a delayed task and cancels it again, the common timeout pattern.
+     */
+    @Benchmark
+    public TaskTimer scheduleAndCancel() {
+        TaskTimer timer = TaskManager.runTaskLater(new Task() {
+            @Override
+            public void runTask() {
+            }
+        }, 1, TimeUnit.HOURS);
+        timer.getTask().cancel();
+        timer.cancel();
+        TaskManager.flush(timer);
+        return timer;
+    }
+
+    @Benchmark
+    public String generateSerialID() {
+        return TaskManager.generateSerialID();
+    }
+}
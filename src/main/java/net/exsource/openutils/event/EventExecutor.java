@@ -0,0 +1,34 @@
+package net.exsource.openutils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+
+/**
+ * An EventExecutor is the compiled call path of a single {@link EventHandler} method.
+ * It will be created once per method by {@link #create(Method)} and reused by every registration, after that
+ * every call is a plain interface call without core reflection or argument arrays.
+ * The argument is the event itself, or a {@link java.util.List} of events for batch handlers.
+ * @since 1.2.0
+ * @see Handler
+ */
+@FunctionalInterface
+public interface EventExecutor {
+
+    void execute(Object listener, Object argument) throws Throwable;
+
+    /**
+     * Binds the given handler method to a generated {@link EventExecutor}. The function tries
+     * to spin a direct call site by {@link LambdaMetafactory} first, if this isn't allowed for the
+     * method's class, a pre-adapted {@link MethodHandle} is used as fallback. The result is cached
+     * per method, listeners which are registered again share the same executor.
+     * @param method the handler method with exactly one event or event list parameter.
+     * @return EventExecutor - the compiled invoker for this method.
+     * @throws IllegalAccessException if the method can't be accessed by this library.
+     */
+    static EventExecutor create(@NotNull Method method) throws IllegalAccessException {
+        return ExecutorCache.get(method);
+    }
+}
@@ -14,4 +14,11 @@ public @interface EventHandler {
 
     boolean ignoreCancelled() default false;
 
+    /**
+     * Async handlers are handed to the listener's executor (or {@link EventManager#getAsyncExecutor()})
+     * instead of running on the dispatching thread. They can't cancel the event for handlers
+     * after them, because nobody waits for them in between.
+     */
+    boolean async() default false;
+
 }
@@ -3,42 +3,169 @@ package net.exsource.openutils.event;
 import net.exsource.openlogger.Logger;
 import org.jetbrains.annotations.NotNull;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 
 @SuppressWarnings("unused")
 public class EventManager {
 
     private static final Logger logger = Logger.getLogger();
 
-    private static final Map<Class<? extends Event>, Set<Handler>> handlers;
+    private static final Handler[] NO_HANDLERS = new Handler[0];
+
+    private static final Object lock = new Object();
+    private static final Map<Class<? extends Event>, Handler[]> handlers;
+    private static final Map<ListenerReference, Handler[]> listeners;
+    private static final ReferenceQueue<Object> collected;
+    private static volatile Map<Class<?>, Handler[]> dispatchTables;
+    private static volatile Executor asyncExecutor = ForkJoinPool.commonPool();
 
     static {
-        handlers = new HashMap<>();
+        handlers = new ConcurrentHashMap<>();
+        listeners = new HashMap<>();
+        collected = new ReferenceQueue<>();
+        dispatchTables = new ConcurrentHashMap<>();
     }
 
     public static void registerListener(@NotNull Object listener) {
-        for(Method method : listener.getClass().getDeclaredMethods()) {
-            if(isEventHandler(method)) {
-                registerListener(method, listener);
+        registerListener(listener, null);
+    }
+
+    /**
+     * Registers the listener and binds its {@link EventHandler#async()} handlers to the given executor.
+     * This is the place to hand in a virtual thread executor or a pool reserved for slow listeners.
+     * @param listener the listener object with {@link EventHandler} methods.
+     * @param executor the executor for async handlers, null uses {@link #getAsyncExecutor()}.
+     */
+    public static void registerListener(@NotNull Object listener, Executor executor) {
+        register(listener, executor, false);
+    }
+
+    /**
+     * Registers the listener by a weak reference. The EventManager doesn't keep the listener alive,
+     * after it was collected its handlers are skipped and removed on the next registry access.
+     * So forgotten listeners can't leak, but you must hold a reference as long as you need the listener.
+     * @param listener the listener object with {@link EventHandler} methods.
+     */
+    public static void registerWeakListener(@NotNull Object listener) {
+        registerWeakListener(listener, null);
+    }
+
+    public static void registerWeakListener(@NotNull Object listener, Executor executor) {
+        register(listener, executor, true);
+    }
+
+    /**
+     * Removes all handlers of the listener. The listeners are indexed by identity,
+     * so the cost depends on the handlers of this listener and not on the whole registry.
+     * @param listener the listener to remove.
+     */
+    public static void unregisterListener(@NotNull Object listener) {
+        expungeCollectedListeners();
+        synchronized (lock) {
+            Handler[] owned = listeners.remove(ListenerReference.strong(listener));
+            if(owned != null) {
+                removeHandlers(owned);
             }
         }
     }
 
-    public static void unregisterListener(@NotNull Object listener) {
-        for(Iterator<Set<Handler>> iterator = handlers.values().iterator(); iterator.hasNext(); ) {
-            Set<Handler> entries = iterator.next();
-            entries.removeIf(handler -> handler.getListener().equals(listener));
+    public static void unregisterAllListeners() {
+        synchronized (lock) {
+            handlers.clear();
+            listeners.clear();
+            invalidateDispatchTables();
+        }
+    }
+
+    private static void register(Object listener, Executor executor, boolean weak) {
+        expungeCollectedListeners();
+        List<Handler> created = createHandlers(listener, executor);
+        if(created.isEmpty()) {
+            return;
+        }
+
+        ListenerReference reference = weak ? ListenerReference.weak(listener, collected) : ListenerReference.strong(listener);
+        Map<Class<? extends Event>, List<Handler>> found = new HashMap<>();
+        Handler[] owned = new Handler[created.size()];
+        for(int i = 0; i < owned.length; i++) {
+            owned[i] = new Handler(created.get(i), reference);
+            found.computeIfAbsent(owned[i].getEventType(), k -> new ArrayList<>()).add(owned[i]);
+        }
 
-            if(entries.isEmpty()) {
-                iterator.remove();
+        synchronized (lock) {
+            for(Map.Entry<Class<? extends Event>, List<Handler>> entry : found.entrySet()) {
+                Handler[] current = handlers.getOrDefault(entry.getKey(), NO_HANDLERS);
+                Handler[] merged = Arrays.copyOf(current, current.length + entry.getValue().size());
+                for(int i = 0; i < entry.getValue().size(); i++) {
+                    merged[current.length + i] = entry.getValue().get(i);
+                }
+                handlers.put(entry.getKey(), merged);
             }
+            listeners.merge(reference, owned, (present, added) -> {
+                Handler[] merged = Arrays.copyOf(present, present.length + added.length);
+                System.arraycopy(added, 0, merged, present.length, added.length);
+                return merged;
+            });
+            invalidateDispatchTables();
         }
     }
 
-    public static void unregisterAllListeners() {
-        handlers.clear();
+    /**
+     * Removes the given handlers from their event types, only the arrays of these types are copied.
+     * Must be called while holding the lock.
+     */
+    private static void removeHandlers(Handler[] owned) {
+        Set<Class<? extends Event>> types = new HashSet<>();
+        Set<Handler> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(Handler handler : owned) {
+            types.add(handler.getEventType());
+            removed.add(handler);
+        }
+
+        for(Class<? extends Event> type : types) {
+            Handler[] current = handlers.get(type);
+            if(current == null) {
+                continue;
+            }
+
+            List<Handler> remaining = new ArrayList<>(current.length);
+            for(Handler handler : current) {
+                if(!removed.contains(handler)) {
+                    remaining.add(handler);
+                }
+            }
+
+            if(remaining.isEmpty()) {
+                handlers.remove(type);
+            } else if(remaining.size() != current.length) {
+                handlers.put(type, remaining.toArray(NO_HANDLERS));
+            }
+        }
+        invalidateDispatchTables();
+    }
+
+    /**
+     * Drops the handlers of weak listeners which were collected. Polling an empty queue is a single
+     * volatile read, so this is cheap enough for every registry access and dispatch.
+     */
+    private static void expungeCollectedListeners() {
+        Reference<?> reference;
+        while ((reference = collected.poll()) != null) {
+            synchronized (lock) {
+                Handler[] owned = listeners.remove((ListenerReference) reference);
+                if(owned != null) {
+                    removeHandlers(owned);
+                }
+            }
+        }
     }
 
     public static void callEvent(Event event) {
@@ -47,62 +174,304 @@ public class EventManager {
     }
 
     public static <T extends Event> T callReturnedEvent(T event) {
+        Handler[] table = getDispatchTable(event.getClass());
+        if(EventMetrics.enabled) {
+            EventMetrics.recordDispatch(event.getClass(), 1);
+        }
+        if(table.length != 0) {
+            dispatch(table, event, null);
+        }
+        return event;
+    }
+
+    /**
+     * Calls the event on {@link #getAsyncExecutor()} instead of the caller's thread. The handlers
+     * still run in {@link EventPriority} order and see cancellation like {@link #callReturnedEvent(Event)};
+     * async handlers are started in their turn and the future completes after all of them finished.
+     * @param event the event to call.
+     * @return CompletableFuture - completes with the event after every handler was called.
+     */
+    public static <T extends Event> CompletableFuture<T> callEventAsync(T event) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<CompletableFuture<Void>> forks = new ArrayList<>();
+            if(EventMetrics.enabled) {
+                EventMetrics.recordDispatch(event.getClass(), 1);
+            }
+            dispatch(getDispatchTable(event.getClass()), event, forks);
+            return forks;
+        }, asyncExecutor).thenCompose(forks -> CompletableFuture
+                .allOf(forks.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> event));
+    }
+
+    /**
+     * Calls a burst of events at once. The events are grouped by their class and every group
+     * resolves its dispatch table only one time. Handlers run in {@link EventPriority} order per group,
+     * and handlers with a {@code List<T>} parameter receive all events of the group in one call,
+     * without the ones which were cancelled before their turn (unless they ignore cancelled events).
+     * Note that the call order is kept only inside a group, not between groups of different classes.
+     * @param events the events to call.
+     */
+    public static void callEvents(@NotNull Collection<? extends Event> events) {
+        Map<Class<?>, List<Event>> groups = new LinkedHashMap<>();
+        for(Event event : events) {
+            groups.computeIfAbsent(event.getClass(), k -> new ArrayList<>()).add(event);
+        }
+
+        for(Map.Entry<Class<?>, List<Event>> group : groups.entrySet()) {
+            Handler[] table = getDispatchTable(group.getKey());
+            if(EventMetrics.enabled) {
+                EventMetrics.recordDispatch(group.getKey(), group.getValue().size());
+            }
+            if(table.length != 0) {
+                dispatchBatch(table, group.getValue());
+            }
+        }
+    }
+
+    public static void setAsyncExecutor(@NotNull Executor executor) {
+        asyncExecutor = executor;
+    }
+
+    public static Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    private static void dispatch(Handler[] table, Event event, List<CompletableFuture<Void>> forks) {
+        Cancelable cancelable = event instanceof Cancelable ? (Cancelable) event : null;
+        for(Handler handler : table) {
+            if(cancelable != null && !handler.isIgnoreCancelled() && cancelable.isCancelled()) {
+                continue;
+            }
+
+            if(handler.isAsync()) {
+                CompletableFuture<Void> fork = invokeAsync(handler, event);
+                if(forks != null) {
+                    forks.add(fork);
+                }
+                continue;
+            }
+
+            invoke(handler, event);
+        }
+    }
+
+    /**
+     * Every dispatch resolves its table here, so collected listeners are dropped before any event is called.
+     */
+    private static Handler[] getDispatchTable(Class<?> eventClass) {
+        expungeCollectedListeners();
+        Map<Class<?>, Handler[]> tables = dispatchTables;
+        Handler[] table = tables.get(eventClass);
+        if(table == null) {
+            table = buildDispatchTable(eventClass);
+            Handler[] present = tables.putIfAbsent(eventClass, table);
+            if(present != null) {
+                table = present;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Replaces the dispatch table cache after the registry was changed. Dispatchers which already
+     * hold the old cache can only write into that detached instance, so a table built from a
+     * registry state in between can never survive the change. Must be called while holding the lock.
+     */
+    private static void invalidateDispatchTables() {
+        dispatchTables = new ConcurrentHashMap<>();
+    }
+
+    private static Handler[] buildDispatchTable(Class<?> eventClass) {
         List<Handler> sortedHandlers = new ArrayList<>();
-        Class<?> cls = event.getClass();
+        Class<?> cls = eventClass;
 
         while (cls != Object.class) {
-            Set<Handler> classHandlers = handlers.get(cls);
+            Handler[] classHandlers = handlers.get(cls);
 
             if(classHandlers != null) {
-                sortedHandlers.addAll(classHandlers);
+                Collections.addAll(sortedHandlers, classHandlers);
             }
 
             for(Class<?> i : cls.getInterfaces()) {
-                Set<Handler> interfaceHandlers = handlers.get(i);
+                Handler[] interfaceHandlers = handlers.get(i);
                 if(interfaceHandlers != null) {
-                    sortedHandlers.addAll(interfaceHandlers);
+                    Collections.addAll(sortedHandlers, interfaceHandlers);
                 }
             }
 
             cls = cls.getSuperclass();
         }
 
-        if(!sortedHandlers.isEmpty()) {
-            sortedHandlers.sort(Comparator.comparing(Handler::getPriority));
+        if(sortedHandlers.isEmpty()) {
+            return NO_HANDLERS;
+        }
 
-            Cancelable cancelable = event instanceof Cancelable ? (Cancelable) event : null;
-            for(Handler handler : sortedHandlers) {
-                if(cancelable != null && !handler.isIgnoreCancelled() && cancelable.isCancelled()) {
-                    continue;
-                }
+        sortedHandlers.sort(Comparator.comparing(Handler::getPriority));
+        return sortedHandlers.toArray(NO_HANDLERS);
+    }
 
-                invoke(handler, event);
-            }
+    static List<Handler> getRegisteredHandlers() {
+        List<Handler> registered = new ArrayList<>();
+        for(Handler[] entries : handlers.values()) {
+            Collections.addAll(registered, entries);
         }
+        return registered;
+    }
 
-        return event;
+    /**
+     * Registers an adapter by hand, for environments where the {@link ServiceLoader} can't see the
+     * generated adapters. Listeners of the adapter's type will no longer be scanned by reflection.
+     * @param adapter the adapter for its listener type.
+     */
+    public static void registerAdapter(@NotNull ListenerAdapter<?> adapter) {
+        AdapterRegistry.adapters.put(adapter.getListenerType(), adapter);
     }
 
-    private static void registerListener(Method method, Object listener) {
-        Class<? extends Event> cls = method.getParameterTypes()[0].asSubclass(Event.class);
-        if(!method.canAccess(listener)) { //ToDo: check that this is in a good state!
-            method.setAccessible(true);
+    @SuppressWarnings("unchecked")
+    private static List<Handler> createHandlers(Object listener, Executor executor) {
+        ListenerAdapter<Object> adapter = (ListenerAdapter<Object>) AdapterRegistry.adapters.get(listener.getClass());
+        if(adapter != null) {
+            return adapter.createHandlers(listener, executor);
         }
 
-        Handler handler = new Handler(listener, method, method.getAnnotation(EventHandler.class));
-        handlers.computeIfAbsent(cls, k -> new HashSet<>()).add(handler);
+        List<Handler> created = new ArrayList<>();
+        for(Method method : listener.getClass().getDeclaredMethods()) {
+            if(isEventHandler(method)) {
+                Handler handler = createHandler(method, listener, executor);
+                if(handler != null) {
+                    created.add(handler);
+                }
+            }
+        }
+        return created;
+    }
+
+    private static Handler createHandler(Method method, Object listener, Executor executor) {
+        try {
+            return new Handler(listener, method, method.getAnnotation(EventHandler.class),
+                    EventExecutor.create(method), executor);
+        } catch (IllegalAccessException exception) {
+            logger.error(exception);
+            return null;
+        }
     }
 
     private static boolean isEventHandler(Method method) {
-        Class<?>[] parameters = method.getParameterTypes();
-        return parameters.length == 1 && Event.class.isAssignableFrom(parameters[0]) && method.isAnnotationPresent(EventHandler.class);
+        return method.isAnnotationPresent(EventHandler.class) && Handler.resolveEventType(method) != null;
+    }
+
+    private static void dispatchBatch(Handler[] table, List<Event> events) {
+        boolean cancelable = events.get(0) instanceof Cancelable;
+        for(Handler handler : table) {
+            if(!handler.isBatch()) {
+                for(Event event : events) {
+                    if(cancelable && !handler.isIgnoreCancelled() && ((Cancelable) event).isCancelled()) {
+                        continue;
+                    }
+
+                    if(handler.isAsync()) {
+                        invokeAsync(handler, event);
+                    } else {
+                        invoke(handler, event);
+                    }
+                }
+                continue;
+            }
+
+            List<Event> accepted = events;
+            if(cancelable && !handler.isIgnoreCancelled()) {
+                accepted = new ArrayList<>(events.size());
+                for(Event event : events) {
+                    if(!((Cancelable) event).isCancelled()) {
+                        accepted.add(event);
+                    }
+                }
+                if(accepted.isEmpty()) {
+                    continue;
+                }
+            }
+
+            if(handler.isAsync()) {
+                invokeAsync(handler, accepted);
+            } else {
+                invoke(handler, accepted);
+            }
+        }
+    }
+
+    private static void invoke(Handler handler, List<Event> events) {
+        boolean measured = EventMetrics.enabled;
+        long start = measured ? System.nanoTime() : 0L;
+        boolean failed = false;
+        try {
+            handler.invoke(events);
+        } catch (Throwable throwable) {
+            failed = true;
+            logger.error(throwable);
+        }
+        if(measured) {
+            handler.recorder().record(System.nanoTime() - start, failed);
+        }
+    }
+
+    private static CompletableFuture<Void> invokeAsync(Handler handler, List<Event> events) {
+        List<Event> snapshot = List.copyOf(events);
+        return submit(handler, () -> invoke(handler, snapshot));
     }
 
     private static void invoke(Handler handler, Event event) {
+        boolean measured = EventMetrics.enabled;
+        long start = measured ? System.nanoTime() : 0L;
+        boolean failed = false;
+        try {
+            handler.invoke(event);
+        } catch (Throwable throwable) {
+            failed = true;
+            logger.error(throwable);
+        }
+        if(measured) {
+            handler.recorder().record(System.nanoTime() - start, failed);
+        }
+    }
+
+    private static CompletableFuture<Void> invokeAsync(Handler handler, Event event) {
+        return submit(handler, () -> invoke(handler, event));
+    }
+
+    private static CompletableFuture<Void> submit(Handler handler, Runnable call) {
+        Executor executor = handler.getAsyncExecutor() != null ? handler.getAsyncExecutor() : asyncExecutor;
         try {
-            handler.getMethod().invoke(handler.getListener(), event);
-        } catch (IllegalAccessException | InvocationTargetException exception) {
+            return CompletableFuture.runAsync(call, executor);
+        } catch (RejectedExecutionException exception) {
             logger.error(exception);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Holds the generated {@link ListenerAdapter}'s. The {@link ServiceLoader} runs on first registration,
+     * so applications without generated adapters don't pay for the lookup.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final class AdapterRegistry {
+
+        private static final Map<Class<?>, ListenerAdapter<?>> adapters = new ConcurrentHashMap<>();
+
+        static {
+            Iterator<ListenerAdapter> iterator = ServiceLoader.load(ListenerAdapter.class).iterator();
+            while (true) {
+                try {
+                    if(!iterator.hasNext()) {
+                        break;
+                    }
+                    ListenerAdapter<?> adapter = iterator.next();
+                    adapters.put(adapter.getListenerType(), adapter);
+                } catch (ServiceConfigurationError error) {
+                    logger.error(error);
+                }
+            }
+            logger.debug("Loaded " + adapters.size() + " generated listener adapters!");
         }
     }
 
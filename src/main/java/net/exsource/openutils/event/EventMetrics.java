@@ -0,0 +1,294 @@
+package net.exsource.openutils.event;
+
+import net.exsource.openlogger.Logger;
+import net.exsource.openutils.tools.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * EventMetrics is the optional instrumentation of the {@link EventManager}. It records invocation counts,
+ * failures and latency histograms per {@link Handler} and the number of dispatches per event type.
+ * The recording is off by default, then the only cost is one volatile read per handler call. A handler
+ * gets its histogram with the first measured call, so handlers cost no memory while the recording is off.
+ * You can query the values by {@link #snapshot()} or over JMX after calling {@link #registerMBean()}.
+ * @since 1.2.0
+ * @author Daniel Ramke
+ */
+@SuppressWarnings("unused")
+public final class EventMetrics {
+
+    private static final Logger logger = Logger.getLogger();
+    private static final String OBJECT_NAME = "net.exsource.openutils:type=EventMetrics";
+
+    static volatile boolean enabled = false;
+
+    private static final Map<Class<?>, LongAdder> dispatches = new ConcurrentHashMap<>();
+    private static volatile long since = System.nanoTime();
+
+    private EventMetrics() {
+    }
+
+    public static void setEnabled(boolean enable) {
+        if(enable && !enabled) {
+            reset();
+        }
+        enabled = enable;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Clears all recorded values, the dispatch rates are measured from now on.
+     */
+    public static void reset() {
+        dispatches.clear();
+        for(Handler handler : EventManager.getRegisteredHandlers()) {
+            Recorder recorder = handler.getRecorder();
+            if(recorder != null) {
+                recorder.reset();
+            }
+        }
+        since = System.nanoTime();
+    }
+
+    public static Snapshot snapshot() {
+        List<HandlerStatistics> handlers = new ArrayList<>();
+        for(Handler handler : EventManager.getRegisteredHandlers()) {
+            Recorder recorder = handler.getRecorder();
+            if(recorder == null) {
+                handlers.add(new HandlerStatistics(handler.getName(), handler.getEventType().getName(),
+                        0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L));
+                continue;
+            }
+            LatencyHistogram latency = recorder.latency;
+            handlers.add(new HandlerStatistics(handler.getName(), handler.getEventType().getName(),
+                    recorder.invocations.sum(), recorder.failures.sum(), latency.getTotal(),
+                    (long) latency.getMean(), latency.getPercentile(50D), latency.getPercentile(99D),
+                    latency.getPercentile(99.9D), latency.getMax()));
+        }
+
+        Map<String, Long> dispatched = new LinkedHashMap<>();
+        for(Map.Entry<Class<?>, LongAdder> entry : dispatches.entrySet()) {
+            dispatched.put(entry.getKey().getName(), entry.getValue().sum());
+        }
+        return new Snapshot(Collections.unmodifiableList(handlers), Collections.unmodifiableMap(dispatched),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - since));
+    }
+
+    /**
+     * Registers the {@link EventMetricsMXBean} at the platform MBean server under
+     * {@code net.exsource.openutils:type=EventMetrics}. Calling it twice does nothing.
+     */
+    public static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if(!server.isRegistered(name)) {
+                server.registerMBean(new MXBean(), name);
+            }
+        } catch (JMException exception) {
+            logger.error(exception);
+        }
+    }
+
+    public static void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if(server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException exception) {
+            logger.error(exception);
+        }
+    }
+
+    static void recordDispatch(Class<?> eventType, int count) {
+        LongAdder adder = dispatches.get(eventType);
+        if(adder == null) {
+            adder = dispatches.computeIfAbsent(eventType, k -> new LongAdder());
+        }
+        adder.add(count);
+    }
+
+    /**
+     * The per handler counters, a {@link Handler} gets its recorder with the first measured call.
+     */
+    static final class Recorder {
+
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        void record(long nanos, boolean failed) {
+            invocations.increment();
+            if(failed) {
+                failures.increment();
+            }
+            latency.record(nanos);
+        }
+
+        void reset() {
+            invocations.reset();
+            failures.reset();
+            latency.reset();
+        }
+    }
+
+    public static final class Snapshot {
+
+        private final List<HandlerStatistics> handlers;
+        private final Map<String, Long> dispatches;
+        private final long periodMillis;
+
+        private Snapshot(List<HandlerStatistics> handlers, Map<String, Long> dispatches, long periodMillis) {
+            this.handlers = handlers;
+            this.dispatches = dispatches;
+            this.periodMillis = periodMillis;
+        }
+
+        public List<HandlerStatistics> getHandlers() {
+            return handlers;
+        }
+
+        /**
+         * @return Map - the number of dispatches per event class name since the last reset.
+         */
+        public Map<String, Long> getDispatches() {
+            return dispatches;
+        }
+
+        /**
+         * @return Map - the dispatches per second per event class name since the last reset.
+         */
+        public Map<String, Double> getDispatchRates() {
+            Map<String, Double> rates = new LinkedHashMap<>();
+            double seconds = Math.max(1L, periodMillis) / 1000D;
+            for(Map.Entry<String, Long> entry : dispatches.entrySet()) {
+                rates.put(entry.getKey(), entry.getValue() / seconds);
+            }
+            return rates;
+        }
+
+        public long getPeriodMillis() {
+            return periodMillis;
+        }
+    }
+
+    /**
+     * The statistics of a single handler, all durations in nanoseconds.
+     */
+    public static final class HandlerStatistics {
+
+        private final String name;
+        private final String eventType;
+        private final long invocations;
+        private final long failures;
+        private final long totalNanos;
+        private final long meanNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+        private final long maxNanos;
+
+        public HandlerStatistics(String name, String eventType, long invocations, long failures, long totalNanos,
+                                 long meanNanos, long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+            this.name = name;
+            this.eventType = eventType;
+            this.invocations = invocations;
+            this.failures = failures;
+            this.totalNanos = totalNanos;
+            this.meanNanos = meanNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.p999Nanos = p999Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getEventType() {
+            return eventType;
+        }
+
+        public long getInvocations() {
+            return invocations;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMeanNanos() {
+            return meanNanos;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        public long getP999Nanos() {
+            return p999Nanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+    }
+
+    private static final class MXBean implements EventMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return EventMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            EventMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public void reset() {
+            EventMetrics.reset();
+        }
+
+        @Override
+        public List<HandlerStatistics> getHandlerStatistics() {
+            return snapshot().getHandlers();
+        }
+
+        @Override
+        public Map<String, Long> getDispatchCounts() {
+            return snapshot().getDispatches();
+        }
+
+        @Override
+        public Map<String, Double> getDispatchRates() {
+            return snapshot().getDispatchRates();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package net.exsource.openutils.event;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JMX view of the {@link EventMetrics}, registered by {@link EventMetrics#registerMBean()}.
+ * @since 1.2.0
+ */
+public interface EventMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    void reset();
+
+    List<EventMetrics.HandlerStatistics> getHandlerStatistics();
+
+    Map<String, Long> getDispatchCounts();
+
+    Map<String, Double> getDispatchRates();
+
+}
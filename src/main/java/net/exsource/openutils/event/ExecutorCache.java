@@ -0,0 +1,71 @@
+package net.exsource.openutils.event;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one {@link EventExecutor} per handler method, so registering a listener again doesn't spin
+ * another hidden class. The executors are stored with the declaring class of the method by a {@link ClassValue},
+ * they are collected together with that class and don't keep its class loader alive.
+ * @since 1.2.0
+ * @author Daniel Ramke
+ */
+final class ExecutorCache {
+
+    private static final ClassValue<Map<Method, EventExecutor>> executors = new ClassValue<>() {
+        @Override
+        protected Map<Method, EventExecutor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private ExecutorCache() {
+    }
+
+    static EventExecutor get(Method method) throws IllegalAccessException {
+        Map<Method, EventExecutor> cached = executors.get(method.getDeclaringClass());
+        EventExecutor executor = cached.get(method);
+        if(executor == null) {
+            // Two threads can compile the same method, only the first result is kept.
+            executor = compile(method);
+            EventExecutor previous = cached.putIfAbsent(method, executor);
+            if(previous != null) {
+                executor = previous;
+            }
+        }
+        return executor;
+    }
+
+    private static EventExecutor compile(Method method) throws IllegalAccessException {
+        Class<?> owner = method.getDeclaringClass();
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+        MethodHandle handle = lookup.unreflect(method);
+
+        if(!Modifier.isStatic(method.getModifiers())) {
+            try {
+                MethodType invokedType = MethodType.methodType(void.class, owner, method.getParameterTypes()[0]);
+                CallSite site = LambdaMetafactory.metafactory(lookup, "execute",
+                        MethodType.methodType(EventExecutor.class),
+                        MethodType.methodType(void.class, Object.class, Object.class),
+                        handle, invokedType);
+                return (EventExecutor) site.getTarget().invokeExact();
+            } catch (Throwable ignored) {
+                // hidden classes need full privilege access, fall through to the plain handle.
+            }
+        } else {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+
+        MethodHandle adapted = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return (listener, argument) -> {
+            adapted.invokeExact(listener, argument);
+        };
+    }
+}
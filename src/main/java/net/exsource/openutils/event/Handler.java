@@ -3,32 +3,207 @@ package net.exsource.openutils.event;
 import org.jetbrains.annotations.NotNull;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Handler {
 
-    private final Object listener;
+    private final ListenerReference listener;
     private final Method method;
-    private final EventHandler eventHandler;
+    private final String name;
+    private final Class<? extends Event> eventType;
+    private final EventPriority priority;
+    private final boolean ignoreCancelled;
+    private final boolean async;
+    private final boolean batch;
+    private final EventExecutor executor;
+    private final Executor asyncExecutor;
+    // Created with the first measured call and shared with the copies of this handler.
+    private final AtomicReference<EventMetrics.Recorder> recorder;
 
+    /**
+     * @throws IllegalArgumentException if the method can't be accessed by this library.
+     */
     public Handler(@NotNull Object listener, @NotNull Method method, @NotNull EventHandler eventHandler) {
+        this(listener, method, eventHandler, executorOf(method), null);
+    }
+
+    public Handler(@NotNull Object listener, @NotNull Method method, @NotNull EventHandler eventHandler,
+                   @NotNull EventExecutor executor, Executor asyncExecutor) {
+        this(listener, method, method.getDeclaringClass().getName() + "#" + method.getName(), resolveEventType(method),
+                eventHandler.priority(), eventHandler.ignoreCancelled(), eventHandler.async(),
+                List.class.equals(method.getParameterTypes()[0]), executor, asyncExecutor);
+    }
+
+    /**
+     * This constructor is used by generated {@link ListenerAdapter}'s, they know all
+     * values of the {@link EventHandler} at compile time and don't need a {@link Method}.
+     */
+    public Handler(@NotNull Object listener, @NotNull String name, @NotNull Class<? extends Event> eventType,
+                   @NotNull EventPriority priority, boolean ignoreCancelled, boolean async, boolean batch,
+                   @NotNull EventExecutor executor, Executor asyncExecutor) {
+        this(listener, null, name, eventType, priority, ignoreCancelled, async, batch, executor, asyncExecutor);
+    }
+
+    /**
+     * Copies the handler for another reference to the same listener, used for weak registrations.
+     */
+    Handler(Handler source, ListenerReference listener) {
+        this(listener, source.method, source.name, source.eventType, source.priority, source.ignoreCancelled,
+                source.async, source.batch, source.executor, source.asyncExecutor, source.recorder);
+    }
+
+    private Handler(Object listener, Method method, String name, Class<? extends Event> eventType,
+                    EventPriority priority, boolean ignoreCancelled, boolean async, boolean batch,
+                    EventExecutor executor, Executor asyncExecutor) {
+        this(ListenerReference.strong(listener), method, name, eventType, priority, ignoreCancelled, async, batch,
+                executor, asyncExecutor, new AtomicReference<>());
+    }
+
+    private Handler(ListenerReference listener, Method method, String name, Class<? extends Event> eventType,
+                    EventPriority priority, boolean ignoreCancelled, boolean async, boolean batch,
+                    EventExecutor executor, Executor asyncExecutor, AtomicReference<EventMetrics.Recorder> recorder) {
         this.listener = listener;
         this.method = method;
-        this.eventHandler = eventHandler;
+        this.name = name;
+        this.eventType = eventType;
+        this.priority = priority;
+        this.ignoreCancelled = ignoreCancelled;
+        this.async = async;
+        this.batch = batch;
+        this.executor = executor;
+        this.asyncExecutor = asyncExecutor;
+        this.recorder = recorder;
+    }
+
+    public void invoke(Event event) throws Throwable {
+        Object target = listener.get();
+        if(target != null) {
+            executor.execute(target, batch ? List.of(event) : event);
+        }
+    }
+
+    public void invoke(List<? extends Event> events) throws Throwable {
+        if(!batch) {
+            throw new IllegalStateException("Handler " + name + " doesn't accept event batches!");
+        }
+        Object target = listener.get();
+        if(target != null) {
+            executor.execute(target, events);
+        }
     }
 
+    /**
+     * @return Object - the listener, null if it was registered weak and is already collected.
+     */
     public Object getListener() {
-        return listener;
+        return listener.get();
+    }
+
+    public boolean isWeak() {
+        return listener.isWeak();
     }
 
+    /**
+     * @return Method - the reflected handler method, null if the handler was created by a {@link ListenerAdapter}.
+     */
     public Method getMethod() {
         return method;
     }
 
+    public String getName() {
+        return name;
+    }
+
+    public Class<? extends Event> getEventType() {
+        return eventType;
+    }
+
+    public EventExecutor getExecutor() {
+        return executor;
+    }
+
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
     public Integer getPriority() {
-        return eventHandler.priority().getRating();
+        return priority.getRating();
     }
 
     public boolean isIgnoreCancelled() {
-        return eventHandler.ignoreCancelled();
+        return ignoreCancelled;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public boolean isBatch() {
+        return batch;
+    }
+
+    ListenerReference getReference() {
+        return listener;
+    }
+
+    /**
+     * @return EventMetrics.Recorder - the recorder or null if no call was measured yet.
+     */
+    EventMetrics.Recorder getRecorder() {
+        return recorder.get();
+    }
+
+    /**
+     * Creates the recorder with the first measured call, so handlers cost no memory while the metrics are off.
+     */
+    EventMetrics.Recorder recorder() {
+        EventMetrics.Recorder current = recorder.get();
+        if(current == null) {
+            recorder.compareAndSet(null, new EventMetrics.Recorder());
+            current = recorder.get();
+        }
+        return current;
+    }
+
+    private static EventExecutor executorOf(Method method) {
+        try {
+            return EventExecutor.create(method);
+        } catch (IllegalAccessException exception) {
+            throw new IllegalArgumentException("The handler method " + method + " can't be accessed!", exception);
+        }
+    }
+
+    /**
+     * Resolves the event type of handler method. Batch handlers like {@code void onEvents(List<MyEvent> events)}
+     * are resolved by the list element, wildcards by their upper bound.
+     * @return Class - the event type or null if the method doesn't take exactly one event or typed event list.
+     */
+    static Class<? extends Event> resolveEventType(Method method) {
+        Class<?>[] parameters = method.getParameterTypes();
+        if(parameters.length != 1) {
+            return null;
+        }
+
+        if(Event.class.isAssignableFrom(parameters[0])) {
+            return parameters[0].asSubclass(Event.class);
+        }
+
+        if(!List.class.equals(parameters[0]) || !(method.getGenericParameterTypes()[0] instanceof ParameterizedType list)) {
+            return null;
+        }
+
+        Type element = list.getActualTypeArguments()[0];
+        if(element instanceof WildcardType wildcard) {
+            element = wildcard.getUpperBounds()[0];
+        }
+        if(element instanceof Class<?> cls && Event.class.isAssignableFrom(cls)) {
+            return cls.asSubclass(Event.class);
+        }
+        return null;
     }
 }
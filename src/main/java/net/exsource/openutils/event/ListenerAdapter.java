@@ -0,0 +1,21 @@
+package net.exsource.openutils.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * A ListenerAdapter creates the {@link Handler}'s of one listener class without reflection.
+ * Adapters are generated at compile time by the {@link net.exsource.openutils.event.processor.EventHandlerProcessor}
+ * and picked up by {@link EventManager} through the {@link java.util.ServiceLoader}.
+ * @param <L> the listener class this adapter is made for.
+ * @since 1.2.0
+ */
+public interface ListenerAdapter<L> {
+
+    Class<L> getListenerType();
+
+    List<Handler> createHandlers(@NotNull L listener, Executor executor);
+
+}
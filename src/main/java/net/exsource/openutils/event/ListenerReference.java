@@ -0,0 +1,55 @@
+package net.exsource.openutils.event;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * The identity key of a registered listener. Strong references keep the listener alive by an
+ * extra field, weak ones only by the {@link WeakReference} and are enqueued after collection.
+ * Equality is the identity of the listener, so a listener with its own equals can't remove others.
+ */
+final class ListenerReference extends WeakReference<Object> {
+
+    private final Object strong;
+    private final int hash;
+
+    private ListenerReference(Object listener, boolean weak, ReferenceQueue<Object> queue) {
+        super(listener, queue);
+        this.strong = weak ? null : listener;
+        this.hash = System.identityHashCode(listener);
+    }
+
+    static ListenerReference strong(Object listener) {
+        return new ListenerReference(listener, false, null);
+    }
+
+    static ListenerReference weak(Object listener, ReferenceQueue<Object> queue) {
+        return new ListenerReference(listener, true, queue);
+    }
+
+    @Override
+    public Object get() {
+        return strong != null ? strong : super.get();
+    }
+
+    boolean isWeak() {
+        return strong == null;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if(this == other) {
+            return true;
+        }
+        if(!(other instanceof ListenerReference reference)) {
+            return false;
+        }
+        Object listener = get();
+        return listener != null && listener == reference.get();
+    }
+}
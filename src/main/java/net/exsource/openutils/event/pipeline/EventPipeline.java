@@ -0,0 +1,347 @@
+package net.exsource.openutils.event.pipeline;
+
+import net.exsource.openlogger.Logger;
+import net.exsource.openutils.event.Event;
+import net.exsource.openutils.event.EventManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * EventPipeline is a preallocated ring buffer between producer threads and the {@link EventManager}.
+ * All slots are created once by the factory and reused, producers claim a slot, fill it by an
+ * {@link EventTranslator} and publish it, while a single consumer thread calls the registered
+ * {@link net.exsource.openutils.event.EventHandler} methods for every published slot in order.
+ * Nothing is allocated per event, so the pipeline reaches rates the synchronous
+ * {@link EventManager#callEvent(Event)} can't.
+ * <p>
+ * Note that the events are reused: handlers must not keep a reference to the event after they returned.
+ * A full buffer blocks the producers until the consumer caught up.
+ *
+ * @param <T> the mutable event type which is transported.
+ * @since 1.2.0
+ * @author Daniel Ramke
+ */
+@SuppressWarnings("unused")
+public class EventPipeline<T extends Event> {
+
+    private static final Logger logger = Logger.getLogger();
+
+    private final String name;
+    private final Event[] entries;
+    private final int mask;
+    private final Sequencer sequencer;
+    private final WaitStrategy waitStrategy;
+    private final Sequence consumed;
+
+    private volatile boolean running;
+    private Thread consumer;
+
+    public EventPipeline(@NotNull String name, @NotNull Supplier<T> factory, int bufferSize) {
+        this(name, factory, bufferSize, ProducerType.MULTI, WaitStrategy.blocking());
+    }
+
+    /**
+     * @param name the name of the consumer thread.
+     * @param factory creates the reused events, it is called bufferSize times.
+     * @param bufferSize the number of slots, must be a power of 2.
+     * @param producerType {@link ProducerType#SINGLE} if only one thread publishes.
+     * @param waitStrategy how the consumer waits for new events.
+     */
+    public EventPipeline(@NotNull String name, @NotNull Supplier<T> factory, int bufferSize,
+                         @NotNull ProducerType producerType, @NotNull WaitStrategy waitStrategy) {
+        if(bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("The buffer size must be a power of 2, but was " + bufferSize + "!");
+        }
+
+        this.name = name;
+        this.entries = new Event[bufferSize];
+        this.mask = bufferSize - 1;
+        this.consumed = new Sequence(-1L);
+        this.sequencer = producerType == ProducerType.SINGLE
+                ? new SingleProducerSequencer(bufferSize, consumed, this::isRunning)
+                : new MultiProducerSequencer(bufferSize, consumed, this::isRunning);
+        this.waitStrategy = waitStrategy;
+        for(int i = 0; i < bufferSize; i++) {
+            entries[i] = factory.get();
+        }
+    }
+
+    public synchronized void start() {
+        if(running) {
+            return;
+        }
+        running = true;
+        consumer = new Thread(this::consume, name);
+        consumer.setDaemon(true);
+        consumer.start();
+        logger.debug("EventPipeline " + name + " started with " + entries.length + " slots!");
+    }
+
+    /**
+     * Stops the consumer after all published events were dispatched and waits for it.
+     */
+    public synchronized void shutdown() throws InterruptedException {
+        if(!running) {
+            return;
+        }
+        running = false;
+        waitStrategy.signalAllWhenBlocking();
+        consumer.join();
+        consumer = null;
+        logger.debug("EventPipeline " + name + " stopped!");
+    }
+
+    /**
+     * Claims the next slot, lets the translator fill it and publishes it to the consumer.
+     * The call blocks while the buffer is full.
+     * @param translator writes the event data into the reused slot.
+     * @throws IllegalStateException if the buffer is full and the pipeline isn't running, nobody frees a slot then.
+     */
+    @SuppressWarnings("unchecked")
+    public void publish(@NotNull EventTranslator<T> translator) {
+        long sequence = sequencer.next();
+        try {
+            translator.translateTo((T) entries[(int) sequence & mask], sequence);
+        } finally {
+            sequencer.publish(sequence);
+            waitStrategy.signalAllWhenBlocking();
+        }
+    }
+
+    /**
+     * Like {@link #publish(EventTranslator)}, but returns false instead of waiting if the buffer is full.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean tryPublish(@NotNull EventTranslator<T> translator) {
+        long sequence = sequencer.tryNext();
+        if(sequence < 0) {
+            return false;
+        }
+        try {
+            translator.translateTo((T) entries[(int) sequence & mask], sequence);
+        } finally {
+            sequencer.publish(sequence);
+            waitStrategy.signalAllWhenBlocking();
+        }
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getBufferSize() {
+        return entries.length;
+    }
+
+    /**
+     * @return long - the number of published events which weren't dispatched yet.
+     */
+    public long getBacklog() {
+        return sequencer.getCursor().get() - consumed.get();
+    }
+
+    private void consume() {
+        long next = consumed.get() + 1;
+        while (true) {
+            long available;
+            try {
+                available = waitStrategy.waitFor(next, sequencer.getCursor(), () -> running);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if(available < next) {
+                if(!running) {
+                    return;
+                }
+                continue;
+            }
+
+            long highest = sequencer.getHighestPublished(next, available);
+            for(long sequence = next; sequence <= highest; sequence++) {
+                try {
+                    EventManager.callReturnedEvent(entries[(int) sequence & mask]);
+                } catch (RuntimeException exception) {
+                    logger.error(exception);
+                }
+            }
+            if(highest >= next) {
+                consumed.setRelease(highest);
+                next = highest + 1;
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private abstract static class Sequencer {
+
+        protected final int bufferSize;
+        protected final Sequence consumed;
+        private final BooleanSupplier running;
+
+        Sequencer(int bufferSize, Sequence consumed, BooleanSupplier running) {
+            this.bufferSize = bufferSize;
+            this.consumed = consumed;
+            this.running = running;
+        }
+
+        abstract long next();
+
+        abstract long tryNext();
+
+        abstract void publish(long sequence);
+
+        abstract Sequence getCursor();
+
+        abstract long getHighestPublished(long lowest, long available);
+
+        protected void awaitCapacity(long wrapPoint) {
+            while (wrapPoint > consumed.get()) {
+                if(!running.getAsBoolean()) {
+                    throw new IllegalStateException("The pipeline isn't running, the full buffer is never consumed!");
+                }
+                LockSupport.parkNanos(1L);
+            }
+        }
+    }
+
+    /**
+     * Only one thread claims slots, so the claim counter is a plain field
+     * and the cursor is the last published sequence.
+     */
+    private static final class SingleProducerSequencer extends Sequencer {
+
+        private final Sequence cursor = new Sequence(-1L);
+        private long nextValue = -1L;
+        private long cachedConsumed = -1L;
+
+        SingleProducerSequencer(int bufferSize, Sequence consumed, BooleanSupplier running) {
+            super(bufferSize, consumed, running);
+        }
+
+        @Override
+        long next() {
+            long next = nextValue + 1;
+            long wrapPoint = next - bufferSize;
+            if(wrapPoint > cachedConsumed) {
+                awaitCapacity(wrapPoint);
+                cachedConsumed = consumed.get();
+            }
+            nextValue = next;
+            return next;
+        }
+
+        @Override
+        long tryNext() {
+            long next = nextValue + 1;
+            long wrapPoint = next - bufferSize;
+            if(wrapPoint > cachedConsumed) {
+                cachedConsumed = consumed.get();
+                if(wrapPoint > cachedConsumed) {
+                    return -1L;
+                }
+            }
+            nextValue = next;
+            return next;
+        }
+
+        @Override
+        void publish(long sequence) {
+            cursor.setRelease(sequence);
+        }
+
+        @Override
+        Sequence getCursor() {
+            return cursor;
+        }
+
+        @Override
+        long getHighestPublished(long lowest, long available) {
+            return available;
+        }
+    }
+
+    /**
+     * Producers claim slots by an atomic add on the cursor, so the cursor can run ahead of the
+     * published slots. Every slot remembers the round in which it was published last,
+     * the consumer only reads up to the first slot which isn't published in the current round.
+     */
+    private static final class MultiProducerSequencer extends Sequencer {
+
+        private final Sequence cursor = new Sequence(-1L);
+        private final AtomicIntegerArray published;
+        private final int indexMask;
+        private final int indexShift;
+
+        MultiProducerSequencer(int bufferSize, Sequence consumed, BooleanSupplier running) {
+            super(bufferSize, consumed, running);
+            this.published = new AtomicIntegerArray(bufferSize);
+            this.indexMask = bufferSize - 1;
+            this.indexShift = Integer.numberOfTrailingZeros(bufferSize);
+            for(int i = 0; i < bufferSize; i++) {
+                published.set(i, -1);
+            }
+        }
+
+        @Override
+        long next() {
+            while (true) {
+                long current = cursor.get();
+                long next = current + 1;
+                // The slot is only claimed once it's free, a throwing wait never leaves a claimed slot unpublished.
+                if(next - bufferSize > consumed.get()) {
+                    awaitCapacity(next - bufferSize);
+                    continue;
+                }
+                if(cursor.compareAndSet(current, next)) {
+                    return next;
+                }
+            }
+        }
+
+        @Override
+        long tryNext() {
+            long current;
+            long next;
+            do {
+                current = cursor.get();
+                next = current + 1;
+                if(next - bufferSize > consumed.get()) {
+                    return -1L;
+                }
+            } while (!cursor.compareAndSet(current, next));
+            return next;
+        }
+
+        @Override
+        void publish(long sequence) {
+            published.lazySet((int) sequence & indexMask, (int) (sequence >>> indexShift));
+        }
+
+        @Override
+        Sequence getCursor() {
+            return cursor;
+        }
+
+        @Override
+        long getHighestPublished(long lowest, long available) {
+            for(long sequence = lowest; sequence <= available; sequence++) {
+                if(published.get((int) sequence & indexMask) != (int) (sequence >>> indexShift)) {
+                    return sequence - 1;
+                }
+            }
+            return available;
+        }
+    }
+}
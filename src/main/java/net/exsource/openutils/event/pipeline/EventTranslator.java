@@ -0,0 +1,17 @@
+package net.exsource.openutils.event.pipeline;
+
+import net.exsource.openutils.event.Event;
+
+/**
+ * Writes the data of a new event into a reused slot of the {@link EventPipeline}.
+ * The slot still holds the values of its last round, so every field needs to be set,
+ * for {@link net.exsource.openutils.event.Cancelable} events also the cancelled flag.
+ * @param <T> the event type of the pipeline.
+ * @since 1.2.0
+ */
+@FunctionalInterface
+public interface EventTranslator<T extends Event> {
+
+    void translateTo(T event, long sequence);
+
+}
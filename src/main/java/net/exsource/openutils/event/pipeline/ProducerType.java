@@ -0,0 +1,13 @@
+package net.exsource.openutils.event.pipeline;
+
+/**
+ * The producer mode of an {@link EventPipeline}. Use {@link #SINGLE} only if exactly one
+ * thread publishes events, it claims slots without any atomic instruction.
+ * @since 1.2.0
+ */
+public enum ProducerType {
+
+    SINGLE,
+    MULTI
+
+}
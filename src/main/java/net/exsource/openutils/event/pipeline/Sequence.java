@@ -0,0 +1,54 @@
+package net.exsource.openutils.event.pipeline;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+abstract class SequenceLeftPadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+abstract class SequenceValue extends SequenceLeftPadding {
+    protected volatile long value;
+}
+
+abstract class SequenceRightPadding extends SequenceValue {
+    protected long p9, p10, p11, p12, p13, p14, p15;
+}
+
+/**
+ * A sequence counter of the {@link EventPipeline}. The value is padded on both sides,
+ * so producers and the consumer don't fight over the same cache line.
+ * @since 1.2.0
+ */
+public final class Sequence extends SequenceRightPadding {
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException exception) {
+            throw new ExceptionInInitializerError(exception);
+        }
+    }
+
+    Sequence(long initial) {
+        VALUE.setRelease(this, initial);
+    }
+
+    public long get() {
+        return value;
+    }
+
+    void setRelease(long sequence) {
+        VALUE.setRelease(this, sequence);
+    }
+
+    boolean compareAndSet(long expected, long sequence) {
+        return VALUE.compareAndSet(this, expected, sequence);
+    }
+
+    long getAndAdd(long delta) {
+        return (long) VALUE.getAndAdd(this, delta);
+    }
+}
@@ -0,0 +1,134 @@
+package net.exsource.openutils.event.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Decides how the consumer of an {@link EventPipeline} waits for new events.
+ * The strategies trade latency against CPU usage, from {@link #busySpin()} which burns
+ * a whole core for the lowest latency, to {@link #blocking()} which sleeps on a lock.
+ * @since 1.2.0
+ */
+public interface WaitStrategy {
+
+    /**
+     * Waits until the cursor reached the sequence or the pipeline stopped running.
+     * @param sequence the next sequence the consumer needs.
+     * @param cursor the producer cursor.
+     * @param running false if the consumer should give up waiting.
+     * @return long - the current cursor, can be lower than the sequence if the pipeline stopped.
+     */
+    long waitFor(long sequence, Sequence cursor, BooleanSupplier running) throws InterruptedException;
+
+    /**
+     * Called by producers after publishing, only needed by strategies which really block.
+     */
+    default void signalAllWhenBlocking() {
+    }
+
+    static WaitStrategy busySpin() {
+        return (sequence, cursor, running) -> {
+            long available;
+            while ((available = cursor.get()) < sequence && running.getAsBoolean()) {
+                Thread.onSpinWait();
+            }
+            return available;
+        };
+    }
+
+    static WaitStrategy yielding() {
+        return (sequence, cursor, running) -> {
+            int spins = 100;
+            long available;
+            while ((available = cursor.get()) < sequence && running.getAsBoolean()) {
+                if(spins > 0) {
+                    spins--;
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return available;
+        };
+    }
+
+    static WaitStrategy sleeping() {
+        return sleeping(TimeUnit.MICROSECONDS.toNanos(100));
+    }
+
+    static WaitStrategy sleeping(long sleepNanos) {
+        return (sequence, cursor, running) -> {
+            int retries = 200;
+            long available;
+            while ((available = cursor.get()) < sequence && running.getAsBoolean()) {
+                if(retries > 100) {
+                    Thread.onSpinWait();
+                } else if(retries > 0) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(sleepNanos);
+                }
+                retries = Math.max(0, retries - 1);
+            }
+            return available;
+        };
+    }
+
+    static WaitStrategy blocking() {
+        return new BlockingWaitStrategy();
+    }
+
+    /**
+     * The consumer sleeps on a condition. It raises a flag before it sleeps, producers only take the
+     * lock and signal if the flag is set, so publishing stays lock-free while the consumer keeps up.
+     * The consumer wakes up every millisecond anyway, so a signal which crossed the flag is never lost for long.
+     */
+    final class BlockingWaitStrategy implements WaitStrategy {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition published = lock.newCondition();
+        private final AtomicBoolean signalNeeded = new AtomicBoolean();
+
+        private BlockingWaitStrategy() {
+        }
+
+        @Override
+        public long waitFor(long sequence, Sequence cursor, BooleanSupplier running) throws InterruptedException {
+            long available = cursor.get();
+            if(available >= sequence) {
+                return available;
+            }
+
+            lock.lock();
+            try {
+                while (true) {
+                    signalNeeded.set(true);
+                    if((available = cursor.get()) >= sequence || !running.getAsBoolean()) {
+                        break;
+                    }
+                    published.await(1, TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                lock.unlock();
+            }
+            return available;
+        }
+
+        @Override
+        public void signalAllWhenBlocking() {
+            if(!signalNeeded.get() || !signalNeeded.getAndSet(false)) {
+                return;
+            }
+            lock.lock();
+            try {
+                published.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package net.exsource.openutils.event.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * This processor generates a {@code ListenerAdapter} for every class with {@code @EventHandler} methods
+ * and lists them in {@code META-INF/services}, so the {@code EventManager} can register these listeners
+ * without scanning methods or calling them by reflection. Add this library to the annotation processor
+ * path of your build to use it, for Gradle this is {@code annotationProcessor 'net.exsource:open-utils'}.
+ * <p>
+ * Classes which can't be called from generated code (anonymous, local or private classes and classes
+ * with private handler methods) are skipped with a note, they keep working over reflection.
+ *
+ * @since 1.2.0
+ * @author Daniel Ramke
+ */
+@SupportedAnnotationTypes(EventHandlerProcessor.EVENT_HANDLER)
+public class EventHandlerProcessor extends AbstractProcessor {
+
+    static final String EVENT_HANDLER = "net.exsource.openutils.event.EventHandler";
+    private static final String EVENT = "net.exsource.openutils.event.Event";
+    private static final String ADAPTER = "net.exsource.openutils.event.ListenerAdapter";
+    private static final String ADAPTER_SUFFIX = "$EventAdapter";
+
+    private final Set<String> generated = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if(roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement(EVENT_HANDLER);
+        if(annotation == null) {
+            return false;
+        }
+
+        Map<TypeElement, List<ExecutableElement>> listeners = new LinkedHashMap<>();
+        for(Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            if(element.getKind() == ElementKind.METHOD) {
+                listeners.computeIfAbsent((TypeElement) element.getEnclosingElement(), k -> new ArrayList<>())
+                        .add((ExecutableElement) element);
+            }
+        }
+
+        for(Map.Entry<TypeElement, List<ExecutableElement>> listener : listeners.entrySet()) {
+            generateAdapter(listener.getKey(), listener.getValue());
+        }
+        return false;
+    }
+
+    private void generateAdapter(TypeElement listener, List<ExecutableElement> methods) {
+        Messager messager = processingEnv.getMessager();
+        if(!isReachable(listener)) {
+            messager.printMessage(Diagnostic.Kind.NOTE, "No adapter generated, listener class isn't reachable from its package.", listener);
+            return;
+        }
+
+        List<String> handlers = new ArrayList<>();
+        for(ExecutableElement method : methods) {
+            String eventType = getEventType(method);
+            if(eventType == null) {
+                messager.printMessage(Diagnostic.Kind.WARNING, "@EventHandler needs exactly one Event or List<Event> parameter, method is ignored.", method);
+                continue;
+            }
+            if(method.getModifiers().contains(Modifier.PRIVATE)) {
+                messager.printMessage(Diagnostic.Kind.NOTE, "No adapter generated, private handler methods are only reachable by reflection.", method);
+                return;
+            }
+            handlers.add(createHandler(listener, method, eventType));
+        }
+
+        if(handlers.isEmpty()) {
+            return;
+        }
+
+        Elements elements = processingEnv.getElementUtils();
+        String packageName = elements.getPackageOf(listener).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(listener).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + ADAPTER_SUFFIX;
+        String listenerType = processingEnv.getTypeUtils().erasure(listener.asType()).toString();
+
+        StringBuilder source = new StringBuilder();
+        if(!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n")
+                .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(simpleName).append(" implements ").append(ADAPTER).append("<").append(listenerType).append("> {\n\n")
+                .append("    @Override\n")
+                .append("    public Class<").append(listenerType).append("> getListenerType() {\n")
+                .append("        return ").append(listenerType).append(".class;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public java.util.List<net.exsource.openutils.event.Handler> createHandlers(").append(listenerType)
+                .append(" listener, java.util.concurrent.Executor executor) {\n")
+                .append("        return java.util.List.of(\n")
+                .append(String.join(",\n", handlers)).append("\n")
+                .append("        );\n")
+                .append("    }\n")
+                .append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, listener);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+            generated.add(qualifiedName);
+        } catch (IOException exception) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Can't write listener adapter: " + exception.getMessage(), listener);
+        }
+    }
+
+    private String createHandler(TypeElement listener, ExecutableElement method, String eventType) {
+        String listenerType = processingEnv.getTypeUtils().erasure(listener.asType()).toString();
+        boolean batch = !eventType.equals(getParameterType(method));
+        String priority = "MODERATE";
+        boolean ignoreCancelled = false;
+        boolean async = false;
+
+        for(AnnotationMirror mirror : method.getAnnotationMirrors()) {
+            if(!mirror.getAnnotationType().toString().equals(EVENT_HANDLER)) {
+                continue;
+            }
+            for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : mirror.getElementValues().entrySet()) {
+                switch (value.getKey().getSimpleName().toString()) {
+                    case "priority" -> priority = ((VariableElement) value.getValue().getValue()).getSimpleName().toString();
+                    case "ignoreCancelled" -> ignoreCancelled = (Boolean) value.getValue().getValue();
+                    case "async" -> async = (Boolean) value.getValue().getValue();
+                }
+            }
+        }
+
+        String target = method.getModifiers().contains(Modifier.STATIC) ? listenerType : "((" + listenerType + ") l)";
+        String argument = batch ? "(java.util.List) e" : "(" + eventType + ") e";
+        // The binary name like Outer$Inner, the same name the reflective handlers get from Class.getName().
+        String name = processingEnv.getElementUtils().getBinaryName(listener) + "#" + method.getSimpleName();
+        return "                new net.exsource.openutils.event.Handler(listener, \"" + name + "\", "
+                + eventType + ".class, net.exsource.openutils.event.EventPriority." + priority + ", "
+                + ignoreCancelled + ", " + async + ", " + batch + ",\n"
+                + "                        (l, e) -> " + target + "." + method.getSimpleName() + "(" + argument + "), executor)";
+    }
+
+    /**
+     * @return String - the erased event type of the handler, for batch handlers the list element type,
+     * null if the method isn't a valid handler.
+     */
+    private String getEventType(ExecutableElement method) {
+        if(method.getParameters().size() != 1) {
+            return null;
+        }
+
+        Types types = processingEnv.getTypeUtils();
+        TypeElement eventElement = processingEnv.getElementUtils().getTypeElement(EVENT);
+        TypeMirror event = types.erasure(eventElement.asType());
+        TypeMirror parameter = method.getParameters().get(0).asType();
+
+        if(types.isAssignable(types.erasure(parameter), event)) {
+            return types.erasure(parameter).toString();
+        }
+
+        if(parameter.getKind() != TypeKind.DECLARED
+                || !types.erasure(parameter).toString().equals(List.class.getName())
+                || ((DeclaredType) parameter).getTypeArguments().size() != 1) {
+            return null;
+        }
+
+        TypeMirror element = ((DeclaredType) parameter).getTypeArguments().get(0);
+        if(element.getKind() == TypeKind.WILDCARD) {
+            element = ((WildcardType) element).getExtendsBound();
+        }
+        if(element == null || element.getKind() != TypeKind.DECLARED || !types.isAssignable(types.erasure(element), event)) {
+            return null;
+        }
+        return types.erasure(element).toString();
+    }
+
+    private String getParameterType(ExecutableElement method) {
+        return processingEnv.getTypeUtils().erasure(method.getParameters().get(0).asType()).toString();
+    }
+
+    private boolean isReachable(TypeElement type) {
+        Element current = type;
+        while (current instanceof TypeElement element) {
+            if(element.getNestingKind() == NestingKind.ANONYMOUS || element.getNestingKind() == NestingKind.LOCAL
+                    || element.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            current = element.getEnclosingElement();
+        }
+        return current instanceof PackageElement;
+    }
+
+    private void writeServiceFile() {
+        if(generated.isEmpty()) {
+            return;
+        }
+
+        Filer filer = processingEnv.getFiler();
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + ADAPTER);
+            try (Writer writer = file.openWriter()) {
+                for(String adapter : generated) {
+                    writer.write(adapter);
+                    writer.write("\n");
+                }
+            }
+        } catch (IOException exception) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Can't write adapter service file: " + exception.getMessage());
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package net.exsource.openutils.io;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A ByteSequence is a {@link CharSequence} view on UTF-8 bytes, mostly of a memory-mapped file.
+ * {@link #charAt(int)} returns the raw byte as char, this is enough for lexing because all chars with
+ * a meaning in .ini and .properties files are ASCII and never part of a multibyte char in UTF-8.
+ * {@link #subSequence(int, int)} only creates a new view on the same bytes, the UTF-8 decoding happens
+ * in {@link #toString()}, straight from the mapping.
+ * <p>
+ * A loaded sequence has to be closed, this releases the mapping right away instead of at the next GC,
+ * so the file can be written or deleted again. Neither the sequence nor its slices can be used after
+ * {@link #close()}, they throw an {@link IllegalStateException} then, turn everything you need into Strings before.
+ * Closing a slice does nothing, only the loaded sequence owns the bytes.
+ * @since 1.2.0
+ * @author Daniel Ramke
+ */
+@SuppressWarnings("unused")
+public final class ByteSequence implements CharSequence, Closeable {
+
+    /**
+     * Smaller files are read into the heap, mapping them costs more than it saves.
+     */
+    public static final int MAPPING_THRESHOLD = 64 * 1024;
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // Without it the mapping is released by the GC.
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int length;
+    private final boolean mapped;
+    // Shared with the slices, none of them may touch the buffer once the mapping is released.
+    private final AtomicBoolean closed;
+    private final boolean slice;
+    private String decoded;
+
+    public ByteSequence(@NotNull ByteBuffer buffer) {
+        this(buffer, buffer.position(), buffer.remaining(), false, new AtomicBoolean(), false);
+    }
+
+    private ByteSequence(ByteBuffer buffer, int offset, int length, boolean mapped, AtomicBoolean closed, boolean slice) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.mapped = mapped;
+        this.closed = closed;
+        this.slice = slice;
+    }
+
+    /**
+     * Opens the file, big files are memory-mapped and small ones read at once. A UTF-8 byte order mark is skipped.
+     * @throws IOException if the file can't be read or is larger than 2 GB.
+     */
+    public static ByteSequence load(@NotNull File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size > Integer.MAX_VALUE) {
+                throw new IOException("The file " + file.getName() + " is too large to be loaded, it has " + size + " bytes!");
+            }
+
+            ByteBuffer buffer;
+            boolean mapped = size >= MAPPING_THRESHOLD;
+            if(mapped) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                while(buffer.hasRemaining()) {
+                    if(channel.read(buffer) < 0) {
+                        break;
+                    }
+                }
+                buffer.flip();
+            }
+
+            int start = 0;
+            if(buffer.remaining() >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF) {
+                start = 3;
+            }
+            return new ByteSequence(buffer, start, buffer.limit() - start, mapped, new AtomicBoolean(), false);
+        }
+    }
+
+    /**
+     * Decodes chars which were collected from a ByteSequence, like an unescaped value, as UTF-8.
+     */
+    public static String decode(@NotNull CharSequence raw) {
+        byte[] bytes = new byte[raw.length()];
+        for(int index = 0; index < bytes.length; index++) {
+            bytes[index] = (byte) raw.charAt(index);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if(index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of the length " + length + "!");
+        }
+        ensureOpen();
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public @NotNull ByteSequence subSequence(int start, int end) {
+        if(start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Range " + start + " to " + end + " is out of the length " + length + "!");
+        }
+        ensureOpen();
+        return new ByteSequence(buffer, offset + start, end - start, false, closed, true);
+    }
+
+    /**
+     * @return int - the first index of the ASCII text or -1 if it isn't part of this sequence.
+     */
+    public int indexOf(@NotNull String ascii) {
+        ensureOpen();
+        int last = length - ascii.length();
+        for(int index = 0; index <= last; index++) {
+            int matched = 0;
+            while(matched < ascii.length() && buffer.get(offset + index + matched) == ascii.charAt(matched)) {
+                matched++;
+            }
+            if(matched == ascii.length()) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return String - the bytes decoded as UTF-8, the result is cached.
+     */
+    @Override
+    public @NotNull String toString() {
+        ensureOpen();
+        String result = decoded;
+        if(result == null) {
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            result = new String(bytes, StandardCharsets.UTF_8);
+            decoded = result;
+        }
+        return result;
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Releases the mapping of a loaded file, heap buffers have nothing to release. Closing twice
+     * or closing a slice does nothing.
+     */
+    @Override
+    public void close() {
+        if(slice || !closed.compareAndSet(false, true) || !mapped || INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // The GC releases the mapping later.
+        }
+    }
+
+    /**
+     * Reading a released mapping crashes the JVM, so every access to the bytes checks this first.
+     */
+    private void ensureOpen() {
+        if(closed.get()) {
+            throw new IllegalStateException("The byte sequence is closed, it can't be read anymore!");
+        }
+    }
+}
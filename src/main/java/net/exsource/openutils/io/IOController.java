@@ -62,20 +62,34 @@ public abstract class IOController {
         }
     }
 
+    /**
+     * Removes the quotes around the value and replaces the escape sequences in one pass,
+     * see {@link IniLexer} for the supported sequences.
+     */
     protected String covertToReadableValue(final String string) {
-        return string.replaceAll("^\"(.*)\"$", "$1")
-                .replaceAll("^'(.*)'$", "$1")
-                .replaceAll("\\\\\"", "\"")
-                .replaceAll("\\\\'", "'")
-                .replaceAll("\\\\\\\\", "\\\\")
-                .replaceAll("\\\\t", "\t")
-                .replaceAll("\\\\r", "\r")
-                .replaceAll("\\\\n", "\n")
-                .replaceAll("\\\\0", "\0")
-                .replaceAll("\\\\b", "\b")
-                .replaceAll("\\\\f", "\f")
-                .replaceAll("\\\\#", "#")
-                .replaceAll("\\\\=", "=")
-                .replaceAll("\\\\:", ":");
+        int start = 0;
+        int end = string.length();
+        char first = end > 1 ? string.charAt(0) : 0;
+        if((first == '"' || first == '\'') && string.charAt(end - 1) == first) {
+            start++;
+            end--;
+        }
+
+        int escape = string.indexOf('\\', start);
+        if(escape < 0 || escape >= end) {
+            return string.substring(start, end);
+        }
+
+        StringBuilder builder = new StringBuilder(end - start);
+        builder.append(string, start, escape);
+        for(int index = escape; index < end; index++) {
+            char current = string.charAt(index);
+            if(current == '\\' && index + 1 < end) {
+                IniLexer.appendEscaped(builder, string.charAt(++index));
+            } else {
+                builder.append(current);
+            }
+        }
+        return builder.toString();
     }
 }
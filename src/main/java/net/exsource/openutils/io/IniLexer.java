@@ -0,0 +1,345 @@
+package net.exsource.openutils.io;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A single pass lexer for .ini content. It walks the characters once and hands out one {@link Token}
+ * per call of {@link #next()}, without regex and without splitting the content into lines.
+ * <ul>
+ *     <li>{@code [section]} starts a section, the name is trimmed.</li>
+ *     <li>{@code ;} and {@code #} start a comment, inside values too. Escape them by {@code \;} and {@code \#}.</li>
+ *     <li>{@code key = value}, key and value are trimmed. A value in {@code "..."} or {@code '...'} keeps
+ *     its spaces and comment chars.</li>
+ *     <li>{@code \t \r \n \0 \b \f} are control chars, {@code \" \' \\ \= \:} are the plain chars.</li>
+ *     <li>A value which ends with {@code \} goes on in the next line, the lines are joined by a line break.</li>
+ * </ul>
+ * Values without escapes are handed out as {@link #getRawValue() slices} of the input, on a
+ * {@link ByteSequence} they are decoded straight from the bytes when they are turned into Strings.
+ * <pre>{@code
+ * IniLexer lexer = new IniLexer(content);
+ * IniLexer.Token token;
+ * while((token = lexer.next()) != null) {
+ *     if(token == IniLexer.Token.SECTION) { ... lexer.getSection() ... }
+ *     else { ... lexer.getKey() ... lexer.getValue() ... }
+ * }
+ * }</pre>
+ * @since 1.2.0
+ * @author Daniel Ramke
+ */
+@SuppressWarnings("unused")
+public final class IniLexer {
+
+    public enum Token {
+        SECTION,
+        ENTRY
+    }
+
+    private final CharSequence input;
+    private final int length;
+    private final boolean bytes;
+    private final StringBuilder value = new StringBuilder();
+    private int position;
+    private int line = 1;
+
+    // The value is the slice from start to end of the input, if it didn't need unescaping.
+    private boolean slice;
+    private int valueStart;
+    private int valueEnd;
+
+    private String section;
+    private String key;
+
+    public IniLexer(@NotNull CharSequence input) {
+        this.input = input;
+        this.length = input.length();
+        this.bytes = input instanceof ByteSequence;
+    }
+
+    /**
+     * Reads the next section or entry, empty lines, comments and lines without {@code =} are skipped.
+     * @return Token - the kind of the token or null at the end of the input.
+     */
+    public Token next() {
+        while(position < length) {
+            skipBlanks();
+            if(position >= length) {
+                return null;
+            }
+
+            char current = input.charAt(position);
+            if(isLineEnd(current)) {
+                skipLineEnd();
+            } else if(current == ';' || current == '#') {
+                skipLine();
+            } else if(current == '[' && readSection()) {
+                return Token.SECTION;
+            } else if(readEntry()) {
+                return Token.ENTRY;
+            }
+        }
+        return null;
+    }
+
+    public String getSection() {
+        return section;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return String - the unescaped value of the last entry.
+     */
+    public String getValue() {
+        return getRawValue().toString();
+    }
+
+    /**
+     * @return CharSequence - the value of the last entry, a slice of the input if it had no escapes.
+     */
+    public CharSequence getRawValue() {
+        if(slice) {
+            return input.subSequence(valueStart, valueEnd);
+        }
+        return bytes ? ByteSequence.decode(value) : value.toString();
+    }
+
+    /**
+     * @return int - the line the lexer is at, counted from 1.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    private boolean readSection() {
+        int start = position + 1;
+        int end = start;
+        while(end < length && input.charAt(end) != ']' && !isLineEnd(input.charAt(end))) {
+            end++;
+        }
+        if(end >= length || input.charAt(end) != ']') {
+            return false;
+        }
+
+        int rest = end + 1;
+        while(rest < length && isBlank(input.charAt(rest))) {
+            rest++;
+        }
+        if(rest < length && !isLineEnd(input.charAt(rest))) {
+            return false;
+        }
+
+        section = trimmed(start, end);
+        position = rest;
+        return true;
+    }
+
+    /**
+     * Reads {@code key = value}, a line without {@code =} is skipped completely.
+     * @return boolean - true if an entry with a key was read.
+     */
+    private boolean readEntry() {
+        int start = position;
+        int end = start;
+        while(end < length) {
+            char current = input.charAt(end);
+            if(current == '=' || isLineEnd(current) || current == ';' || current == '#') {
+                break;
+            }
+            end++;
+        }
+
+        if(end >= length || input.charAt(end) != '=') {
+            position = end;
+            skipLine();
+            return false;
+        }
+
+        String name = trimmed(start, end);
+        position = end + 1;
+        readValue();
+        if(name.isEmpty()) {
+            return false;
+        }
+        key = name;
+        return true;
+    }
+
+    private void readValue() {
+        value.setLength(0);
+        skipBlanks();
+        if(position < length) {
+            char quote = input.charAt(position);
+            if((quote == '"' || quote == '\'') && readQuoted(quote)) {
+                return;
+            }
+        }
+
+        int start = position;
+        int end = start;
+        while(position < length) {
+            char current = input.charAt(position);
+            if(isLineEnd(current) || current == ';' || current == '#') {
+                break;
+            }
+            if(current == '\\') {
+                position = start;
+                readEscapedValue();
+                return;
+            }
+            position++;
+            if(!isBlank(current)) {
+                end = position;
+            }
+        }
+        setSlice(start, end);
+        skipLine();
+    }
+
+    /**
+     * Reads a plain value which contains escapes or goes on in the next line into the buffer.
+     */
+    private void readEscapedValue() {
+        slice = false;
+        // Everything up to this length has to stay, the rest are trailing blanks.
+        int significant = 0;
+        while(position < length) {
+            char current = input.charAt(position);
+            if(isLineEnd(current) || current == ';' || current == '#') {
+                break;
+            }
+
+            position++;
+            if(current != '\\') {
+                value.append(current);
+                if(!isBlank(current)) {
+                    significant = value.length();
+                }
+                continue;
+            }
+
+            if(position >= length || isLineEnd(input.charAt(position))) {
+                value.setLength(significant);
+                value.append('\n');
+                significant = value.length();
+                skipLineEnd();
+                continue;
+            }
+            appendEscaped(input.charAt(position++));
+            significant = value.length();
+        }
+        value.setLength(significant);
+        skipLine();
+    }
+
+    /**
+     * Reads a value in quotes, if the quote isn't closed in the same line the value is read as plain text.
+     */
+    private boolean readQuoted(char quote) {
+        int end = position + 1;
+        boolean escaped = false;
+        while(end < length) {
+            char current = input.charAt(end);
+            if(current == quote || isLineEnd(current)) {
+                break;
+            }
+            if(current == '\\' && end + 1 < length && !isLineEnd(input.charAt(end + 1))) {
+                escaped = true;
+                end += 2;
+            } else {
+                end++;
+            }
+        }
+        if(end >= length || input.charAt(end) != quote) {
+            return false;
+        }
+
+        if(escaped) {
+            slice = false;
+            for(int index = position + 1; index < end; index++) {
+                char current = input.charAt(index);
+                if(current == '\\') {
+                    appendEscaped(input.charAt(++index));
+                } else {
+                    value.append(current);
+                }
+            }
+        } else {
+            setSlice(position + 1, end);
+        }
+        position = end + 1;
+        skipLine();
+        return true;
+    }
+
+    private void setSlice(int start, int end) {
+        slice = true;
+        valueStart = start;
+        valueEnd = end;
+    }
+
+    private void appendEscaped(char escaped) {
+        appendEscaped(value, escaped);
+    }
+
+    /**
+     * Appends the char which is meant by {@code \escaped}, unknown escapes are kept as they are.
+     */
+    static void appendEscaped(StringBuilder out, char escaped) {
+        switch (escaped) {
+            case 't' -> out.append('\t');
+            case 'r' -> out.append('\r');
+            case 'n' -> out.append('\n');
+            case '0' -> out.append('\0');
+            case 'b' -> out.append('\b');
+            case 'f' -> out.append('\f');
+            case '"', '\'', '\\', '#', ';', '=', ':' -> out.append(escaped);
+            default -> out.append('\\').append(escaped);
+        }
+    }
+
+    private String trimmed(int start, int end) {
+        while(start < end && Character.isWhitespace(input.charAt(start))) {
+            start++;
+        }
+        while(end > start && Character.isWhitespace(input.charAt(end - 1))) {
+            end--;
+        }
+        return input.subSequence(start, end).toString();
+    }
+
+    private void skipBlanks() {
+        while(position < length && isBlank(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    private void skipLine() {
+        while(position < length && !isLineEnd(input.charAt(position))) {
+            position++;
+        }
+        skipLineEnd();
+    }
+
+    private void skipLineEnd() {
+        int start = position;
+        if(position < length && input.charAt(position) == '\r') {
+            position++;
+        }
+        if(position < length && input.charAt(position) == '\n') {
+            position++;
+        }
+        if(position > start) {
+            line++;
+        }
+    }
+
+    private static boolean isLineEnd(char current) {
+        return current == '\n' || current == '\r';
+    }
+
+    private static boolean isBlank(char current) {
+        return current == ' ' || current == '\t' || current == '\f' || current == '\u000B';
+    }
+}
@@ -1,31 +1,24 @@
 package net.exsource.openutils.io.controller;
 
+import net.exsource.openutils.io.ByteSequence;
 import net.exsource.openutils.io.IOController;
+import net.exsource.openutils.io.IniLexer;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.commons.lang3.mutable.MutableObject;
 import org.apache.commons.text.StringSubstitutor;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.text.NumberFormat;
-import java.text.ParseException;
 import java.util.*;
 import java.util.function.Predicate;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -50,27 +43,33 @@ import static org.apache.commons.lang3.ObjectUtils.firstNonNull;
 public class IniController extends IOController {
 
     private static final String NO_SECTION = "_NO_SECTION";
-    private static final Pattern SECTION_PATTERN  = Pattern.compile( "\\s*\\[([^]]*)]\\s*" );
-    private static final Pattern KEY_VALUE_PATTER = Pattern.compile( "\\s*([^=]*)=(.*)" );
-    private static final Pattern COMMENT_LINE = Pattern.compile("^[;|#].*");
     private final Map<String, Map<String, Object>> resultMap = new LinkedHashMap<>();
-
+    // Maps every key to the sections which contain it in the order they got it, for the lookups without a section.
+    private final Map<String, Set<String>> keyIndex = new HashMap<>();
 
     public void load(final InputStream inputStream) throws IOException {
         logger.debug("Try loading .ini file...");
         if (inputStream == null) {
             throw new FileNotFoundException("inputStream is null");
         }
-        MutableObject<String> section = new MutableObject<>(NO_SECTION);
-        try (InputStreamReader inputStreamReader = new InputStreamReader(inputStream);
-             BufferedReader bufferedReader = new BufferedReader(inputStreamReader)) {
-            parseIniFile(section, bufferedReader);
+        try (inputStream) {
+            parseIniFile(IOUtils.toString(inputStream, StandardCharsets.UTF_8));
         }
     }
 
+    /**
+     * Loads the file through a {@link ByteSequence}, big files are memory-mapped. The values are decoded
+     * straight from the mapping, which is released before this method returns.
+     */
     @Override
     public void load(final File file) throws IOException {
-        load(new FileInputStream(file));
+        logger.debug("Try loading .ini file...");
+        if (!file.isFile()) {
+            throw new FileNotFoundException("Can't find " + file.getName());
+        }
+        try (ByteSequence content = ByteSequence.load(file)) {
+            parseIniFile(content);
+        }
     }
 
     @Override
@@ -78,8 +77,7 @@ public class IniController extends IOController {
         if(args == null)
             throw new NullPointerException("The input args was null...");
 
-        InputStream stream = new ByteArrayInputStream(String.join(System.lineSeparator(), Arrays.asList(args)).getBytes(StandardCharsets.UTF_8));
-        load(stream);
+        load(String.join(System.lineSeparator(), Arrays.asList(args)));
     }
 
     public void load(final String string) throws  IOException {
@@ -88,81 +86,57 @@ public class IniController extends IOController {
             return;
         }
 
-        load(new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8)));
+        logger.debug("Try loading .ini file...");
+        parseIniFile(string);
     }
 
+    /**
+     * Parses the content with the {@link IniLexer}, all sections and entries are read in one pass.
+     */
     @SuppressWarnings({"unchecked", "rawtypes"})
-    private void parseIniFile(final MutableObject<String> section,
-                              final BufferedReader bufferedReader) throws IOException {
+    private void parseIniFile(final CharSequence content) {
         logger.debug("Begin parsing of .ini file...");
-        if(bufferedReader == null) {
-            logger.error("The given Reader was null!");
-            return;
-        }
-
-        final Map<String, Object> variables = new HashMap<>();
-        variables.putAll(System.getenv());
-        variables.putAll(new HashMap<String, Object>((Map) System.getProperties()));
-
-        String line;
-        StringBuilder multilineValue = new StringBuilder();
-        String key = null;
+        Map<String, Object> variables = null;
         Map<String, StringSubstitutor> stringStringSubstitutorPerSection = new HashMap<>();
-        while ((line = bufferedReader.readLine()) != null ) {
-
-            final Matcher commentMatcher = COMMENT_LINE.matcher(line);
-            if (commentMatcher.matches()) {
-                continue;
-            }
-
-            final Matcher sectionMather = SECTION_PATTERN.matcher(line);
-            if (sectionMather.matches()) {
-                section.setValue(sectionMather.group(1).trim());
+        MutableObject<String> section = new MutableObject<>(NO_SECTION);
+        Map<String, Object> sectionMap = null;
+
+        IniLexer lexer = new IniLexer(content);
+        IniLexer.Token token;
+        while ((token = lexer.next()) != null) {
+            if (token == IniLexer.Token.SECTION) {
+                section.setValue(lexer.getSection());
+                sectionMap = null;
                 continue;
             }
 
-            line = line.replaceAll("[^\\\\]#.+", "")
-                    .replaceAll("[^\\\\];.+", "")
-                    .replaceAll("\\\\([;#])", "$1");
-
-            if (StringUtils.isEmpty(line)) {
-                continue;
+            if (sectionMap == null) {
+                sectionMap = getMapForSection(section);
             }
 
-            final Matcher keyValueMatcher = KEY_VALUE_PATTER.matcher(line);
-            if (keyValueMatcher.matches()) {
-                key = keyValueMatcher.group(1).trim();
-                multilineValue = new StringBuilder(covertToReadableValue(keyValueMatcher.group(2).trim()).replaceAll("\\\\$", "\n"));
-                if (line.endsWith("\\")) {
-                    continue;
-                }
-            } else if (line.endsWith("\\")) {
-                multilineValue.append(line.replaceAll("\\\\$", "\n"));
+            CharSequence raw = lexer.getRawValue();
+            if (!hasVariable(raw)) {
+                sectionMap.put(lexer.getKey(), new LazyValue(raw.toString(), true));
+                index(section.getValue(), lexer.getKey());
                 continue;
-            } else if (multilineValue.isEmpty()){
-                multilineValue.append(line.replaceAll("\\\\$", "\n"));
             }
 
-
-            if (StringUtils.isNotEmpty(key)) {
-                Object normalizedValue = normalizeValue(multilineValue.toString());
-
-                if (normalizedValue instanceof String && line.contains("${")) {
-                    StringSubstitutor substitutor = stringStringSubstitutorPerSection.computeIfAbsent(
-                            section.getValue(), s -> {
-                                StringSubstitutor stringSubstitutor = new StringSubstitutor(
-                                        new IniController.DelegateMap(variables, getMapForSection(section)));
-                                stringSubstitutor.setEnableSubstitutionInVariables(true);
-                                return stringSubstitutor;
-                            });
-
-                    normalizedValue = substitutor.replace(normalizedValue.toString());
-                }
-
-                getMapForSection(section).put(key, normalizedValue);
+            if (variables == null) {
+                variables = new HashMap<>();
+                variables.putAll(System.getenv());
+                variables.putAll(new HashMap<String, Object>((Map) System.getProperties()));
             }
-            key = null;
-            multilineValue = new StringBuilder();
+            final Map<String, Object> source = variables;
+            StringSubstitutor substitutor = stringStringSubstitutorPerSection.computeIfAbsent(
+                    section.getValue(), s -> {
+                        StringSubstitutor stringSubstitutor = new StringSubstitutor(
+                                new IniController.DelegateMap(source, getMapForSection(section)));
+                        stringSubstitutor.setEnableSubstitutionInVariables(true);
+                        return stringSubstitutor;
+                    });
+
+            sectionMap.put(lexer.getKey(), new LazyValue(substitutor.replace(raw.toString()), true));
+            index(section.getValue(), lexer.getKey());
         }
         logger.debug("Finished parsing .ini file successfully!");
     }
@@ -172,49 +146,49 @@ public class IniController extends IOController {
                 section.getValue(), s1 -> new LinkedHashMap<>());
     }
 
-    private Object normalizeValue(final String value) {
-        if (NumberUtils.isCreatable(value)) {
-            try {
-                return NumberFormat.getInstance().parse(value);
-            } catch (ParseException e) {
-                return value;
-            }
+    private static boolean hasVariable(final CharSequence raw) {
+        if (raw instanceof ByteSequence) {
+            return ((ByteSequence) raw).indexOf("${") >= 0;
         }
-        return value;
+        return raw.toString().contains("${");
+    }
+
+    /**
+     * @return Object - the untyped value, a loaded value is a {@link Number} or a String like before.
+     */
+    private static Object unwrap(final Object value) {
+        return value instanceof LazyValue ? ((LazyValue) value).get() : value;
+    }
+
+    /**
+     * @return Map - a copy of the section with the untyped values, or null if there is no section.
+     */
+    private static Map<String, Object> unwrapAll(final Map<String, Object> sectionMap) {
+        if (sectionMap == null) {
+            return null;
+        }
+        Map<String, Object> values = new LinkedHashMap<>(sectionMap);
+        values.replaceAll((key, value) -> unwrap(value));
+        return values;
     }
 
     @Override
     public boolean hasKey(@NotNull String key) {
-        boolean exist = false;
-        for(String section : getSections()) {
-            for(String keys : getKeys(section)) {
-                if(keys.equals(key)) {
-                    exist = true;
-                    break;
-                }
-            }
-        }
-        return exist;
+        return findSection(key) != null;
     }
 
     public boolean hasKey(final String selection, final String key) {
         return (resultMap.containsKey(selection) && resultMap.get(selection).containsKey(key));
     }
 
+    /**
+     * Looks the key up in the key index, if more than one section has the key the section which got it
+     * first wins, for a loaded file that's the first one in the file.
+     */
     @Override
     public <T> T getValue(@NotNull String key, Class<T> cast) {
-        String firstKey = null;
-        String section = null;
-        for(String sections : getSections()) {
-            for (String keys : getKeys(sections)) {
-                if(keys.equals(key)) {
-                    firstKey = keys;
-                    section = sections;
-                    break;
-                }
-            }
-        }
-        return getValue(section, firstKey, cast);
+        String section = findSection(key);
+        return section == null ? null : getValue(section, key, cast);
     }
 
     public Object getValue(final String section, final String key) {
@@ -222,19 +196,24 @@ public class IniController extends IOController {
     }
 
     public <T> T getValue(final String section, final String key, final Class<T> type) {
-        return cast(resultMap.getOrDefault(section, new LinkedHashMap<>()).get(key), type);
+        Map<String, Object> sectionMap = resultMap.get(section);
+        if (sectionMap == null) {
+            return null;
+        }
+        Object value = sectionMap.get(key);
+        return value instanceof LazyValue ? ((LazyValue) value).get(type) : cast(value, type);
     }
 
     public Collection<String> getSections() {
-        return resultMap.keySet();
+        return Collections.unmodifiableSet(resultMap.keySet());
     }
 
     public Collection<String> getKeys(final String section) {
-        return resultMap.getOrDefault(section, new LinkedHashMap<>()).keySet();
+        return Collections.unmodifiableSet(resultMap.getOrDefault(section, new LinkedHashMap<>()).keySet());
     }
 
     public Map<String, Object> getSection(final String section) {
-        Map<String, Object> map = resultMap.get(section);
+        Map<String, Object> map = unwrapAll(resultMap.get(section));
         if (map == null) {
             return null;
         }
@@ -242,7 +221,7 @@ public class IniController extends IOController {
     }
 
     public Map<String, Object> getSectionSortedByKey(final String section) {
-        Map<String, Object> map = resultMap.get(section);
+        Map<String, Object> map = unwrapAll(resultMap.get(section));
         if (map == null) {
             return null;
         }
@@ -255,7 +234,7 @@ public class IniController extends IOController {
 
     public Map<String, Object> getSectionWithKeysThatMatchFunction(final String section,
                                                                    final Predicate<Map.Entry<String, Object>> filter) {
-        final Map<String, Object> stringObjectMap = firstNonNull(resultMap.get(section), new LinkedHashMap<>());
+        final Map<String, Object> stringObjectMap = firstNonNull(unwrapAll(resultMap.get(section)), new LinkedHashMap<>());
         return stringObjectMap.entrySet().stream()
                 .filter(filter)
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
@@ -268,6 +247,7 @@ public class IniController extends IOController {
 
     public void putValue(final String section, final String key, final Object value) {
         resultMap.computeIfAbsent(section, s -> new LinkedHashMap<>()).put(key, value);
+        index(section, key);
     }
 
     public void store(final OutputStream outputStream, final String comments) throws IOException {
@@ -289,7 +269,7 @@ public class IniController extends IOController {
             bufferedWriter.newLine();
             for (Map.Entry<String, Object> sectionEntry : section.getValue().entrySet()) {
                 bufferedWriter.write(sectionEntry.getKey() + " = ");
-                bufferedWriter.write(sectionEntry.getValue().toString());
+                bufferedWriter.write(unwrap(sectionEntry.getValue()).toString());
                 bufferedWriter.newLine();
             }
             bufferedWriter.newLine();
@@ -306,11 +286,42 @@ public class IniController extends IOController {
     }
 
     public Map<String, Object> removeSection(final String section) {
-        return resultMap.remove(section);
+        Map<String, Object> sectionMap = resultMap.remove(section);
+        if (sectionMap != null) {
+            for (String key : sectionMap.keySet()) {
+                unindex(section, key);
+            }
+        }
+        return unwrapAll(sectionMap);
     }
 
     public Object removeSectionKey(final String section, final String key) {
-        return resultMap.getOrDefault(section, new LinkedHashMap<>()).remove(key);
+        Map<String, Object> sectionMap = resultMap.get(section);
+        if (sectionMap == null) {
+            return null;
+        }
+        unindex(section, key);
+        return unwrap(sectionMap.remove(key));
+    }
+
+    private void index(final String section, final String key) {
+        keyIndex.computeIfAbsent(key, k -> new LinkedHashSet<>(2)).add(section);
+    }
+
+    private void unindex(final String section, final String key) {
+        Set<String> sections = keyIndex.get(key);
+        if (sections != null && sections.remove(section) && sections.isEmpty()) {
+            keyIndex.remove(key);
+        }
+    }
+
+    /**
+     * The index is kept exact by every write, so the lookup doesn't change anything.
+     * @return String - the section which got the key first, or null if no section has it.
+     */
+    private String findSection(final String key) {
+        Set<String> sections = keyIndex.get(key);
+        return sections == null ? null : sections.iterator().next();
     }
 
     public static final class DelegateMap extends AbstractMap<String, Object> {
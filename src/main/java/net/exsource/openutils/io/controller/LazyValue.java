@@ -0,0 +1,123 @@
+package net.exsource.openutils.io.controller;
+
+import net.exsource.openutils.tools.Commons;
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A LazyValue keeps a loaded value as it was written. The number is parsed on first use and every typed
+ * result is cached, so the next {@link #get(Class)} with the same type is a single map lookup.
+ * The controllers store it for every value they parsed, values which are put by the code are stored as they are.
+ * Reading doesn't change anything but the caches, which are safe to fill from several threads, so a loaded
+ * controller can still be read concurrently.
+ * @since 1.2.0
+ * @author Daniel Ramke
+ */
+final class LazyValue {
+
+    private final String text;
+    private final boolean numbers;
+    private final Map<Class<?>, Object> typed = new ConcurrentHashMap<>(4);
+    // Parsing twice gives the same result, so a race only costs the second parse.
+    private volatile Object normalized;
+
+    /**
+     * @param numbers true if the untyped value is a {@link Number} for numeric text, like the .ini values.
+     */
+    LazyValue(String text, boolean numbers) {
+        this.text = text;
+        this.numbers = numbers;
+    }
+
+    /**
+     * @return Object - the legacy untyped value, a {@link Number} if the text is numeric and numbers are enabled.
+     */
+    Object get() {
+        return numbers ? normalized() : text();
+    }
+
+    /**
+     * Converts the value once per type, the result is cached. Text types get the text as written,
+     * numeric types get the parsed number, all other types are converted by {@link Commons#cast(Object, Class)}.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(Class<T> type) {
+        Object cached = typed.get(type);
+        if(cached != null) {
+            return (T) cached;
+        }
+
+        Object value;
+        if(type == String.class || type == CharSequence.class) {
+            value = text();
+        } else if(Number.class.isAssignableFrom(ClassUtils.primitiveToWrapper(type))) {
+            value = Commons.cast(normalized(), type);
+        } else {
+            value = Commons.cast(get(), type);
+        }
+
+        if(value != null) {
+            typed.putIfAbsent(type, value);
+        }
+        return (T) value;
+    }
+
+    String text() {
+        return text;
+    }
+
+    private Object normalized() {
+        Object result = normalized;
+        if(result == null) {
+            result = normalize(text);
+            normalized = result;
+        }
+        return result;
+    }
+
+    /**
+     * Parses numeric text as {@link Long} or {@link Double}, integral doubles become a Long. Other text
+     * is returned as it is. The parsing doesn't depend on the locale.
+     */
+    static Object normalize(String value) {
+        if(value.isEmpty() || !isNumberStart(value.charAt(0))) {
+            return value;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ignored) {
+        }
+        if(!NumberUtils.isCreatable(value)) {
+            return value;
+        }
+
+        try {
+            double number = Double.parseDouble(value);
+            if(number % 1 == 0 && number >= Long.MIN_VALUE && number <= Long.MAX_VALUE) {
+                return (long) number;
+            }
+            return number;
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            return NumberUtils.createNumber(value);
+        } catch (NumberFormatException exception) {
+            return value;
+        }
+    }
+
+    private static boolean isNumberStart(char current) {
+        return (current >= '0' && current <= '9') || current == '-' || current == '+' || current == '.';
+    }
+
+    /**
+     * @return String - the text, so substitutions and string views see the value as it was written.
+     */
+    @Override
+    public String toString() {
+        return text();
+    }
+}
@@ -1,17 +1,18 @@
 package net.exsource.openutils.io.controller;
 
 import net.exsource.openlogger.util.ConsoleColor;
+import net.exsource.openutils.io.ByteSequence;
 import net.exsource.openutils.io.IOController;
 import net.exsource.openutils.tools.Commons;
 import net.exsource.openutils.enums.DateFormat;
-import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.io.IOUtils;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import static net.exsource.openutils.tools.Commons.cast;
 
@@ -32,8 +33,12 @@ import static net.exsource.openutils.tools.Commons.cast;
 @SuppressWarnings("unused")
 public class PropertiesController extends IOController {
 
-    private static final Pattern COMMENT_LINE = Pattern.compile("^[;|#].*");
-    private static final Pattern KEY_VALUE_PATTER = Pattern.compile( "\\s*([^=]*)=(.*)" );
+    /**
+     * Files from this size on are parsed in chunks on the common {@link ForkJoinPool} by {@link #load(File)}.
+     */
+    public static final long PARALLEL_THRESHOLD = 16L * 1024 * 1024;
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+
     private final Map<String, Object> resultMap = new LinkedHashMap<>();
 
     private boolean autoSave;
@@ -47,16 +52,67 @@ public class PropertiesController extends IOController {
         if(stream == null)
             throw new FileNotFoundException("inputStream is null");
 
-        try(InputStreamReader inputStreamReader = new InputStreamReader(stream);
-            BufferedReader bufferedReader = new BufferedReader(inputStreamReader)) {
-            parseProperties(bufferedReader);
+        try(stream) {
+            parseProperties(IOUtils.toString(stream, StandardCharsets.UTF_8));
         }
     }
 
+    /**
+     * Loads the file through a {@link ByteSequence}, big files are memory-mapped. The values are decoded
+     * straight from the mapping, which is released before this method returns. Files from {@link #PARALLEL_THRESHOLD} on are
+     * parsed in parallel like {@link #load(File, ForkJoinPool)} does.
+     */
     @Override
     public void load(@NotNull File file) throws IOException {
+        if(file.length() >= PARALLEL_THRESHOLD) {
+            load(file, ForkJoinPool.commonPool());
+            return;
+        }
+
         this.setResource(file);
-        load(new FileInputStream(file));
+        logger.debug("Try loading .properties file...");
+        if(!file.isFile())
+            throw new FileNotFoundException("Can't find " + file.getName());
+
+        try(ByteSequence content = ByteSequence.load(file)) {
+            parseProperties(content);
+        }
+    }
+
+    /**
+     * Loads the file and parses it in chunks on the pool. The chunks are split at line ends and merged
+     * in file order, so the result is the same as by {@link #load(File)}: a key keeps the position of its
+     * first line and the value of its last line.
+     */
+    public void load(@NotNull File file, @NotNull ForkJoinPool pool) throws IOException {
+        this.setResource(file);
+        logger.debug("Try loading .properties file in parallel...");
+        if(!file.isFile())
+            throw new FileNotFoundException("Can't find " + file.getName());
+
+        try(ByteSequence content = ByteSequence.load(file)) {
+            int chunkSize = Math.max(MIN_CHUNK_SIZE, content.length() / (pool.getParallelism() * 4));
+            List<Integer> bounds = new ArrayList<>();
+            bounds.add(0);
+            int position = 0;
+            while(position < content.length()) {
+                position = nextLineStart(content, Math.min(content.length(), position + chunkSize));
+                bounds.add(position);
+            }
+
+            List<Map<String, Object>> chunks = new ArrayList<>(bounds.size() - 1);
+            for(int index = 1; index < bounds.size(); index++) {
+                chunks.add(new LinkedHashMap<>());
+            }
+            logger.debug("Begin parsing of .properties file in " + chunks.size() + " chunk(s)...");
+            if(!chunks.isEmpty()) {
+                pool.invoke(new ChunkAction(content, bounds, chunks, 0, chunks.size()));
+            }
+            for(Map<String, Object> chunk : chunks) {
+                resultMap.putAll(chunk);
+            }
+        }
+        logger.debug("Finished parsing .properties file successfully!");
     }
 
     @Override
@@ -64,8 +120,7 @@ public class PropertiesController extends IOController {
         if(args == null)
             throw new NullPointerException("The input args was null...");
 
-        InputStream stream = new ByteArrayInputStream(String.join(System.lineSeparator(), Arrays.asList(args)).getBytes(StandardCharsets.UTF_8));
-        load(stream);
+        load(String.join(System.lineSeparator(), Arrays.asList(args)));
     }
 
     public void load(final String string) throws IOException {
@@ -74,50 +129,137 @@ public class PropertiesController extends IOController {
             return;
         }
 
-        load(new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8)));
+        logger.debug("Try loading .properties file...");
+        parseProperties(string);
     }
 
-    private void parseProperties(final BufferedReader reader) throws IOException {
+    /**
+     * Parses the content in one pass over the chars. Lines which start with {@code ;}, {@code |} or {@code #}
+     * are comments, an unescaped {@code #} ends the line. The key is everything before the first {@code =}.
+     * A value without quotes and escapes is stored as slice of the content.
+     */
+    private void parseProperties(final CharSequence content) {
         logger.debug("Begin parsing of .properties file...");
-        if(reader == null) {
-            logger.error("The given Reader was null!");
-            return;
-        }
-
-        String line;
-        while ((line = reader.readLine()) != null) {
+        parseRange(content, 0, content.length(), resultMap);
+        logger.debug("Finished parsing .properties file successfully!");
+    }
 
-            final Matcher commentMatcher = COMMENT_LINE.matcher(line);
-            if (commentMatcher.matches()) {
-                continue;
+    /**
+     * Parses the lines from start to end into the map, start has to be the beginning of a line.
+     */
+    private void parseRange(final CharSequence content, int start, int end, final Map<String, Object> out) {
+        int position = start;
+        while(position < end) {
+            int lineEnd = position;
+            int separator = -1;
+            int comment = -1;
+            boolean plain = true;
+            while(lineEnd < end) {
+                char current = content.charAt(lineEnd);
+                if(current == '\n' || current == '\r') {
+                    break;
+                }
+                if(comment < 0) {
+                    if(current == '=' && separator < 0) {
+                        separator = lineEnd;
+                    } else if(current == '#') {
+                        comment = lineEnd;
+                    } else if(current == '\\' || current == '"' || current == '\'') {
+                        plain = false;
+                        // An escaped char never starts a comment or splits the key.
+                        if(current == '\\' && lineEnd + 1 < end && content.charAt(lineEnd + 1) != '\n'
+                                && content.charAt(lineEnd + 1) != '\r') {
+                            lineEnd++;
+                        }
+                    }
+                }
+                lineEnd++;
             }
 
-            line = line.replaceAll("[^\\\\]#.+", "")
-                    .replaceAll("\\\\([;#])", "$1");
+            int next = lineEnd;
+            if(next < end && content.charAt(next) == '\r') {
+                next++;
+            }
+            if(next < end && content.charAt(next) == '\n') {
+                next++;
+            }
 
-            if (StringUtils.isEmpty(line)) {
-                continue;
+            char first = content.charAt(position);
+            if(separator >= 0 && first != ';' && first != '|' && first != '#') {
+                readEntry(content, position, separator, comment < 0 ? lineEnd : comment, plain, out);
             }
+            position = next;
+        }
+    }
 
-            String key = null;
-            String value = null;
+    private static int nextLineStart(CharSequence content, int position) {
+        while(position < content.length() && content.charAt(position) != '\n') {
+            position++;
+        }
+        return Math.min(content.length(), position + 1);
+    }
 
-            final Matcher keyValueMatcher = KEY_VALUE_PATTER.matcher(line);
-            if (keyValueMatcher.matches()) {
-                key = keyValueMatcher.group(1).trim();
-                value = covertToReadableValue(keyValueMatcher.group(2).trim());
-            }
+    private void readEntry(CharSequence content, int start, int separator, int end, boolean plain, Map<String, Object> out) {
+        String key = trim(content, start, separator).toString();
+        if(key.isEmpty()) {
+            return;
+        }
 
-            if(StringUtils.isNotEmpty(key)) {
-                if(resultMap.containsKey(key)) {
-                    resultMap.replace(key, value);
-                    continue;
-                }
-                resultMap.put(key, value);
-            }
+        CharSequence value = trim(content, separator + 1, end);
+        if(!plain) {
+            value = covertToReadableValue(value.toString());
         }
+        out.put(key, new LazyValue(value.toString(), false));
+    }
 
-        logger.debug("Finished parsing .properties file successfully!");
+    private static CharSequence trim(CharSequence content, int start, int end) {
+        while(start < end && Character.isWhitespace(content.charAt(start))) {
+            start++;
+        }
+        while(end > start && Character.isWhitespace(content.charAt(end - 1))) {
+            end--;
+        }
+        return content.subSequence(start, end);
+    }
+
+    /**
+     * Parses the chunks from first to last, the half of the range is forked until a single chunk is left.
+     */
+    private final class ChunkAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final CharSequence content;
+        private final List<Integer> bounds;
+        private final List<Map<String, Object>> chunks;
+        private final int first;
+        private final int last;
+
+        private ChunkAction(CharSequence content, List<Integer> bounds, List<Map<String, Object>> chunks, int first, int last) {
+            this.content = content;
+            this.bounds = bounds;
+            this.chunks = chunks;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if(last - first == 1) {
+                parseRange(content, bounds.get(first), bounds.get(last), chunks.get(first));
+                return;
+            }
+            int middle = (first + last) >>> 1;
+            ChunkAction right = new ChunkAction(content, bounds, chunks, middle, last);
+            right.fork();
+            try {
+                new ChunkAction(content, bounds, chunks, first, middle).compute();
+            } finally {
+                // The mapping is released after the invoke, so no chunk may still run when it returns.
+                right.quietlyJoin();
+            }
+            right.join();
+        }
     }
 
     public void save() {
@@ -237,7 +379,8 @@ public class PropertiesController extends IOController {
 
     @Override
     public <T> T getValue(@NotNull String key, Class<T> cast) {
-        return hasKey(key) ? cast(resultMap.get(key), cast) : null;
+        Object value = resultMap.get(key);
+        return value instanceof LazyValue ? ((LazyValue) value).get(cast) : cast(value, cast);
     }
 
     public Object[] getValueAsArray(@NotNull String key) {
@@ -272,8 +415,16 @@ public class PropertiesController extends IOController {
         return returnedMap;
     }
 
+    /**
+     * @return Map - a copy of the entries, loaded values are given as the text they were written with.
+     */
     public Map<String, Object> getEntries() {
-        return resultMap;
+        Map<String, Object> entries = new LinkedHashMap<>(resultMap.size() * 4 / 3 + 1);
+        for(Map.Entry<String, Object> entry : resultMap.entrySet()) {
+            Object value = entry.getValue();
+            entries.put(entry.getKey(), value instanceof LazyValue ? ((LazyValue) value).text() : value);
+        }
+        return entries;
     }
 
     public List<String> getProperties() {
@@ -0,0 +1,99 @@
+package net.exsource.openutils.task;
+
+import net.exsource.openlogger.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Debouncer runs its action once after a burst of triggers, when no trigger came for the quiet time.
+ * A trigger only stores its time, at most one check per Debouncer is scheduled at the {@link TaskEngine}
+ * of the {@link TaskManager}, no matter how many triggers come in.
+ * <pre>{@code
+ * Debouncer save = new Debouncer(() -> controller.save(), 500, TimeUnit.MILLISECONDS);
+ * save.trigger(); // on every change
+ * }</pre>
+ * @since 1.2.0
+ * @author Daniel Ramke
+ */
+@SuppressWarnings("unused")
+public class Debouncer {
+
+    private static final Logger logger = Logger.getLogger();
+
+    private final Runnable action;
+    private final long quiet;
+    private final AtomicLong lastTrigger = new AtomicLong();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong executions = new AtomicLong();
+
+    public Debouncer(@NotNull Runnable action, long quietTime, @NotNull TimeUnit unit) {
+        if(quietTime <= 0) {
+            throw new IllegalArgumentException("The quiet time has to be greater than 0, was " + quietTime + "!");
+        }
+        this.action = action;
+        this.quiet = unit.toNanos(quietTime);
+    }
+
+    public void trigger() {
+        lastTrigger.set(System.nanoTime());
+        if(scheduled.compareAndSet(false, true)) {
+            submit(quiet);
+        }
+    }
+
+    /**
+     * Runs the action if the last trigger is older than the quiet time, otherwise waits for the rest of it.
+     */
+    private void check() {
+        long last = lastTrigger.get();
+        long remaining = last + quiet - System.nanoTime();
+        if(remaining > 0L) {
+            submit(remaining);
+            return;
+        }
+
+        scheduled.set(false);
+        // A trigger which came while this check ran is part of the burst, it starts a new check.
+        if(lastTrigger.get() != last) {
+            if(scheduled.compareAndSet(false, true)) {
+                submit(quiet);
+            }
+            return;
+        }
+
+        executions.incrementAndGet();
+        try {
+            action.run();
+        } catch (Throwable throwable) {
+            logger.error(throwable);
+        }
+    }
+
+    private void submit(long delay) {
+        try {
+            TaskManager.getEngine().schedule(this::check, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException exception) {
+            scheduled.set(false);
+            logger.error(exception);
+        }
+    }
+
+    /**
+     * @return boolean - true if a burst is running and the action is still waiting.
+     */
+    public boolean isPending() {
+        return scheduled.get();
+    }
+
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    public long getQuietTime(@NotNull TimeUnit unit) {
+        return unit.convert(quiet, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,29 @@
+package net.exsource.openutils.task;
+
+/**
+ * Decides what a {@link PeriodTask} does with firings it missed, because a run took longer than the
+ * period or the process was paused (GC, suspend). Without a policy a task scheduled at fixed rate uses
+ * {@link #FIXED_RATE}, a task scheduled with fixed delay uses {@link #FIXED_DELAY}.
+ * @since 1.2.0
+ */
+public enum PeriodPolicy {
+
+    /**
+     * Stays on the time grid of the first run and catches missed firings up back-to-back,
+     * but not more than {@link PeriodTask#getMaxCatchUp()}. Older firings are dropped.
+     */
+    FIXED_RATE,
+    /**
+     * Waits one period after every run, missed firings don't exist.
+     */
+    FIXED_DELAY,
+    /**
+     * Drops all missed firings and waits for the next point of the time grid.
+     */
+    SKIP_MISSED,
+    /**
+     * Runs all missed firings as one run right away, the time grid starts again from this run.
+     */
+    COALESCE
+
+}
@@ -0,0 +1,129 @@
+package net.exsource.openutils.task;
+
+import net.exsource.openlogger.Logger;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a {@link PeriodTask} by scheduling one firing after the other on the {@link TaskEngine}.
+ * The next firing is planned after the run is done, so runs never overlap and the {@link PeriodPolicy}
+ * of the task decides what happens with firings which were missed in the meantime.
+ */
+final class PeriodRunner implements Runnable {
+
+    private static final Logger logger = Logger.getLogger();
+
+    private final PeriodTask task;
+    private final TaskEngine engine;
+    private final TaskGroup group;
+    private final long period;
+    private final PeriodPolicy fallback;
+
+    // Point of the time grid the next run belongs to, only touched by the running firing.
+    private long scheduled;
+
+    PeriodRunner(PeriodTask task, TaskEngine engine, TaskGroup group, long periodMillis, boolean fixedRate) {
+        this.task = task;
+        this.engine = engine;
+        this.group = group;
+        this.period = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+        this.fallback = fixedRate ? PeriodPolicy.FIXED_RATE : PeriodPolicy.FIXED_DELAY;
+    }
+
+    void start(long delayMillis) {
+        long delay = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        scheduled = System.nanoTime() + delay;
+        submit(delay);
+    }
+
+    @Override
+    public void run() {
+        if(!task.isAlive()) {
+            return;
+        }
+        if(group == null) {
+            fire();
+        } else {
+            group.execute(this::fire);
+        }
+    }
+
+    private void fire() {
+        if(!task.isAlive()) {
+            return;
+        }
+
+        boolean measured = TaskMetrics.enabled;
+        long start = System.nanoTime();
+        try {
+            task.run();
+        } catch (Throwable throwable) {
+            logger.error(throwable);
+            task.cancel();
+            if(measured) {
+                TaskMetrics.recordRun(task, Math.max(0L, start - scheduled), System.nanoTime() - start, true);
+            }
+            return;
+        }
+        long end = System.nanoTime();
+        task.record(start - scheduled, end - start, period);
+        if(measured) {
+            TaskMetrics.recordRun(task, Math.max(0L, start - scheduled), end - start, false);
+            if(end - start > period) {
+                TaskMetrics.recordOverrun(task);
+            }
+        }
+
+        if(task.isAlive()) {
+            plan(end);
+            submit(Math.max(0L, scheduled - System.nanoTime()));
+        }
+    }
+
+    /**
+     * Moves {@link #scheduled} to the point of the next run.
+     */
+    private void plan(long end) {
+        PeriodPolicy policy = task.getPolicy() != null ? task.getPolicy() : fallback;
+        if(policy == PeriodPolicy.FIXED_DELAY) {
+            scheduled = end + period;
+            return;
+        }
+
+        long due = scheduled + period;
+        if(due > end) {
+            scheduled = due;
+            return;
+        }
+
+        long behind = (end - due) / period + 1;
+        switch (policy) {
+            case SKIP_MISSED -> {
+                task.recordMissed(behind);
+                scheduled = due + behind * period;
+            }
+            case COALESCE -> {
+                task.recordMissed(behind - 1);
+                scheduled = end;
+            }
+            default -> {
+                long dropped = Math.max(0L, behind - task.getMaxCatchUp());
+                task.recordMissed(dropped);
+                scheduled = due + dropped * period;
+            }
+        }
+    }
+
+    private void submit(long delay) {
+        try {
+            task.setFuture(engine.schedule(this, delay, TimeUnit.NANOSECONDS));
+        } catch (RejectedExecutionException exception) {
+            if(TaskMetrics.enabled) {
+                TaskMetrics.recordRejected();
+            }
+            logger.error(exception);
+            task.cancel();
+        }
+    }
+}
@@ -1,8 +1,23 @@
 package net.exsource.openutils.task;
 
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
 public abstract class PeriodTask extends Task {
 
-    private boolean alive = true;
+    public static final int DEFAULT_MAX_CATCH_UP = 3;
+
+    private volatile boolean alive = true;
+    private volatile PeriodPolicy policy;
+    private volatile int maxCatchUp = DEFAULT_MAX_CATCH_UP;
+
+    // Only the thread which runs the task writes the statistics, the runs never overlap.
+    private volatile long executions;
+    private volatile long missed;
+    private volatile long overruns;
+    private volatile long lastDrift;
+    private volatile long maxDrift;
 
     public abstract void runTask();
 
@@ -21,4 +36,74 @@ public abstract class PeriodTask extends Task {
         return alive;
     }
 
+    /**
+     * Sets the policy for missed firings, it's used from the next firing on.
+     * @param policy the policy or null to use the one which fits the schedule call.
+     */
+    public void setPolicy(PeriodPolicy policy) {
+        this.policy = policy;
+    }
+
+    public PeriodPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @param maxCatchUp the number of missed firings {@link PeriodPolicy#FIXED_RATE} runs back-to-back, at least 1.
+     */
+    public void setMaxCatchUp(int maxCatchUp) {
+        if(maxCatchUp < 1) {
+            throw new IllegalArgumentException("The catch up limit can't be less than 1, was " + maxCatchUp + "!");
+        }
+        this.maxCatchUp = maxCatchUp;
+    }
+
+    public int getMaxCatchUp() {
+        return maxCatchUp;
+    }
+
+    public long getExecutions() {
+        return executions;
+    }
+
+    /**
+     * @return long - the firings which were dropped or merged by the policy.
+     */
+    public long getMissed() {
+        return missed;
+    }
+
+    /**
+     * @return long - the runs which took longer than the period.
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * @return long - how late the last run started compared to its point of the time grid.
+     */
+    public long getLastDrift(@NotNull TimeUnit unit) {
+        return unit.convert(lastDrift, TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxDrift(@NotNull TimeUnit unit) {
+        return unit.convert(maxDrift, TimeUnit.NANOSECONDS);
+    }
+
+    void record(long drift, long duration, long period) {
+        executions++;
+        lastDrift = drift;
+        if(drift > maxDrift) {
+            maxDrift = drift;
+        }
+        if(duration > period) {
+            overruns++;
+        }
+    }
+
+    void recordMissed(long count) {
+        missed += count;
+    }
+
 }
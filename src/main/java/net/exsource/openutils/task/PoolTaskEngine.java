@@ -0,0 +1,66 @@
+package net.exsource.openutils.task;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The default {@link TaskEngine}, a shared {@link ScheduledThreadPoolExecutor} with daemon threads.
+ * Scheduling and cancelling cost O(log n) in its delay queue.
+ * @since 1.2.0
+ */
+@SuppressWarnings("unused")
+public class PoolTaskEngine implements TaskEngine {
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    public PoolTaskEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public PoolTaskEngine(int poolSize) {
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(1, poolSize), runnable -> {
+            Thread thread = new Thread(runnable, "TaskTimer-pool-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public Future<?> schedule(@NotNull Runnable command, long delay, @NotNull TimeUnit unit) {
+        return executor.schedule(command, delay, unit);
+    }
+
+    @Override
+    public Future<?> scheduleAtFixedRate(@NotNull Runnable command, long delay, long period, @NotNull TimeUnit unit) {
+        return executor.scheduleAtFixedRate(command, delay, period, unit);
+    }
+
+    @Override
+    public Future<?> scheduleWithFixedDelay(@NotNull Runnable command, long delay, long period, @NotNull TimeUnit unit) {
+        return executor.scheduleWithFixedDelay(command, delay, period, unit);
+    }
+
+    @Override
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public void setPoolSize(int size) {
+        executor.setCorePoolSize(size);
+    }
+
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+}
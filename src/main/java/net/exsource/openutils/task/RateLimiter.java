@@ -0,0 +1,128 @@
+package net.exsource.openutils.task;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A token bucket which hands out {@code rate} permits per second and holds up to {@code burst} of them.
+ * The whole bucket is one {@link AtomicLong}, the time at which the bucket is empty again, so a permit
+ * costs one compare-and-set and no lock.
+ * <pre>{@code
+ * RateLimiter limiter = new RateLimiter(20, 5);
+ * if(limiter.tryAcquire()) {
+ *     sendRequest();
+ * }
+ * }</pre>
+ * @since 1.2.0
+ * @author Daniel Ramke
+ */
+@SuppressWarnings("unused")
+public class RateLimiter {
+
+    private final double rate;
+    private final int burst;
+    private final long interval;
+    private final long capacity;
+    private final AtomicLong emptyAt;
+
+    /**
+     * Creates a limiter which holds the permits of one second.
+     */
+    public RateLimiter(double permitsPerSecond) {
+        this(permitsPerSecond, (int) Math.max(1D, Math.ceil(permitsPerSecond)));
+    }
+
+    public RateLimiter(double permitsPerSecond, int burst) {
+        if(permitsPerSecond <= 0D || Double.isNaN(permitsPerSecond)) {
+            throw new IllegalArgumentException("The rate has to be greater than 0, was " + permitsPerSecond + "!");
+        }
+        if(burst < 1) {
+            throw new IllegalArgumentException("The burst can't be less than 1, was " + burst + "!");
+        }
+        this.rate = permitsPerSecond;
+        this.burst = burst;
+        this.interval = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.capacity = interval * burst;
+        this.emptyAt = new AtomicLong(System.nanoTime() - capacity);
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * Takes the permits if the bucket holds enough of them, never waits.
+     * @return boolean - true if the permits were taken.
+     */
+    public boolean tryAcquire(int permits) {
+        long cost = cost(permits);
+        while(true) {
+            long now = System.nanoTime();
+            long current = emptyAt.get();
+            long next = Math.max(current, now - capacity) + cost;
+            if(next - now > 0L) {
+                return false;
+            }
+            if(emptyAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    public void acquire() {
+        acquire(1);
+    }
+
+    /**
+     * Takes the permits and parks the current thread until they are paid off.
+     */
+    public void acquire(int permits) {
+        long wait = reserve(permits);
+        while(wait > 0L && !Thread.currentThread().isInterrupted()) {
+            long start = System.nanoTime();
+            LockSupport.parkNanos(this, wait);
+            wait -= System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Takes the permits without waiting, even if the bucket doesn't hold them.
+     * Use it to plan a task for the returned delay instead of blocking a thread.
+     * @return long - the nanoseconds until the permits are paid off, 0 if they are available right now.
+     */
+    public long reserve(int permits) {
+        long cost = cost(permits);
+        while(true) {
+            long now = System.nanoTime();
+            long current = emptyAt.get();
+            long next = Math.max(current, now - capacity) + cost;
+            if(emptyAt.compareAndSet(current, next)) {
+                return Math.max(0L, next - now);
+            }
+        }
+    }
+
+    /**
+     * @return int - the permits which can be taken right now.
+     */
+    public int getAvailablePermits() {
+        long free = System.nanoTime() - emptyAt.get();
+        return (int) Math.max(0L, Math.min(burst, free / interval));
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    private long cost(int permits) {
+        if(permits < 1) {
+            throw new IllegalArgumentException("At least one permit has to be taken, was " + permits + "!");
+        }
+        return interval * permits;
+    }
+}
@@ -1,26 +1,91 @@
 package net.exsource.openutils.task;
 
 import java.util.TimerTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 public abstract class Task extends TimerTask {
 
-    private boolean alive = true;
+    private volatile boolean alive = true;
+    private volatile boolean periodic;
+    private volatile Future<?> future;
+    private final AtomicReference<Runnable> completion = new AtomicReference<>();
+    private volatile TaskMetrics.Recorder recorder;
 
     public abstract void runTask();
 
     @Override
     public void run() {
-        runTask();
-        alive = false;
+        try {
+            runTask();
+        } finally {
+            // A periodic task only ends by cancel, the engine keeps firing it until then.
+            if(!periodic) {
+                alive = false;
+                complete();
+            }
+        }
     }
 
     @Override
     public boolean cancel() {
         alive = false;
-        return super.cancel();
+        Future<?> scheduled = future;
+        boolean cancelled = scheduled != null && scheduled.cancel(false);
+        boolean result = super.cancel() || cancelled;
+        complete();
+        return result;
     }
 
     public boolean isAlive() {
         return alive;
     }
+
+    void setPeriodic() {
+        this.periodic = true;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+        if(!isAlive()) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * Adds a hook which is called once the task is finished or cancelled, each hook runs at most one time.
+     * Hooks run in the order they were added. If the task is already dead the hook runs directly.
+     */
+    void onCompletion(Runnable hook) {
+        completion.getAndUpdate(previous -> previous == null ? hook : () -> {
+            previous.run();
+            hook.run();
+        });
+        if(!isAlive()) {
+            complete();
+        }
+    }
+
+    TaskMetrics.Recorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Creates the recorder with the first recorded run, the runs of a task don't overlap.
+     */
+    TaskMetrics.Recorder recorder() {
+        TaskMetrics.Recorder current = recorder;
+        if(current == null) {
+            current = new TaskMetrics.Recorder();
+            recorder = current;
+        }
+        return current;
+    }
+
+    private void complete() {
+        Runnable hook = completion.getAndSet(null);
+        if(hook != null) {
+            hook.run();
+        }
+    }
 }
@@ -0,0 +1,35 @@
+package net.exsource.openutils.task;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A TaskEngine is the scheduler behind the {@link TaskManager}. The default is the
+ * {@link PoolTaskEngine}, for masses of short timeouts which are mostly cancelled
+ * the {@link TimingWheelTaskEngine} is the better choice.
+ * @since 1.2.0
+ * @see TaskManager#setEngine(TaskEngine)
+ */
+public interface TaskEngine {
+
+    Future<?> schedule(@NotNull Runnable command, long delay, @NotNull TimeUnit unit);
+
+    Future<?> scheduleAtFixedRate(@NotNull Runnable command, long delay, long period, @NotNull TimeUnit unit);
+
+    Future<?> scheduleWithFixedDelay(@NotNull Runnable command, long delay, long period, @NotNull TimeUnit unit);
+
+    /**
+     * @return int - the number of commands which wait for their time, 0 if the engine can't tell.
+     */
+    default int getQueueSize() {
+        return 0;
+    }
+
+    /**
+     * Stops the engine, tasks which didn't run yet are dropped.
+     */
+    void shutdown();
+
+}
@@ -0,0 +1,186 @@
+package net.exsource.openutils.task;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A TaskGraph runs {@link Task}'s which depend on each other. Every node starts the moment all of its
+ * dependencies are done, independent branches run in parallel on a {@link ForkJoinPool}. The nodes a
+ * worker unlocks are forked into its own queue, so idle workers steal them.
+ * <pre>{@code
+ * TaskGraph graph = new TaskGraph()
+ *         .add("download", download)
+ *         .add("unzip", unzip, "download")
+ *         .add("config", config)
+ *         .add("start", start, "unzip", "config");
+ * graph.execute().join();
+ * }</pre>
+ * Dependencies have to be added before the nodes which need them, so a graph can't contain cycles.
+ * A graph can be executed more than once, every execution runs each node one time.
+ * @since 1.2.0
+ * @author Daniel Ramke
+ */
+@SuppressWarnings("unused")
+public class TaskGraph {
+
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+
+    /**
+     * Adds a node to the graph.
+     * @param name the unique name of the node.
+     * @param task the task which is run by the node.
+     * @param dependencies the names of the nodes which have to be done before this node starts.
+     * @return TaskGraph - this graph, to chain the calls.
+     * @throws IllegalArgumentException if the name is already used or a dependency is unknown.
+     */
+    public synchronized TaskGraph add(@NotNull String name, @NotNull Task task, String... dependencies) {
+        if(nodes.containsKey(name)) {
+            throw new IllegalArgumentException("The graph already contains a node with the name " + name + "!");
+        }
+
+        Node node = new Node(nodes.size(), name, task);
+        for(String dependency : dependencies) {
+            Node required = nodes.get(dependency);
+            if(required == null) {
+                throw new IllegalArgumentException("Node " + name + " depends on the unknown node " + dependency + "!");
+            }
+            if(!node.dependencies.contains(required)) {
+                node.dependencies.add(required);
+            }
+        }
+        for(Node required : node.dependencies) {
+            required.dependants.add(node);
+        }
+        nodes.put(name, node);
+        return this;
+    }
+
+    public CompletableFuture<Void> execute() {
+        return execute(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs the graph on the given pool.
+     * @return CompletableFuture - completes once all nodes are done, or exceptionally with the first
+     * failure of a node. Nodes which depend on a failed node aren't started.
+     */
+    public CompletableFuture<Void> execute(@NotNull ForkJoinPool pool) {
+        List<Node> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(nodes.values());
+        }
+
+        Execution execution = new Execution(snapshot);
+        if(snapshot.isEmpty()) {
+            execution.result.complete(null);
+            return execution.result;
+        }
+
+        for(Node node : snapshot) {
+            if(node.dependencies.isEmpty()) {
+                pool.execute(new NodeAction(execution, node));
+            }
+        }
+        return execution.result;
+    }
+
+    public synchronized boolean contains(@NotNull String name) {
+        return nodes.containsKey(name);
+    }
+
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    private static final class Node {
+
+        private final int index;
+        private final String name;
+        private final Task task;
+        private final List<Node> dependencies = new ArrayList<>();
+        private final List<Node> dependants = new CopyOnWriteArrayList<>();
+
+        private Node(int index, String name, Task task) {
+            this.index = index;
+            this.name = name;
+            this.task = task;
+        }
+    }
+
+    /**
+     * The state of one run of the graph, nodes which are added while it runs aren't part of it.
+     */
+    private static final class Execution {
+
+        private final int size;
+        private final AtomicIntegerArray pending;
+        private final AtomicInteger remaining;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private Execution(List<Node> snapshot) {
+            this.size = snapshot.size();
+            this.pending = new AtomicIntegerArray(size);
+            this.remaining = new AtomicInteger(size);
+            for(Node node : snapshot) {
+                pending.set(node.index, node.dependencies.size());
+            }
+        }
+    }
+
+    private static final class NodeAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Execution execution;
+        private final Node node;
+
+        private NodeAction(Execution execution, Node node) {
+            this.execution = execution;
+            this.node = node;
+        }
+
+        /**
+         * Runs the node and forks every node it unlocks, except one which is run directly by this worker.
+         */
+        @Override
+        protected void compute() {
+            Node current = node;
+            while(current != null && !execution.result.isDone()) {
+                try {
+                    current.task.run();
+                } catch (Throwable throwable) {
+                    execution.result.completeExceptionally(new IllegalStateException("Node " + current.name + " of the TaskGraph failed!", throwable));
+                    return;
+                }
+
+                if(execution.remaining.decrementAndGet() == 0) {
+                    execution.result.complete(null);
+                    return;
+                }
+
+                Node next = null;
+                for(Node dependant : current.dependants) {
+                    if(dependant.index >= execution.size || execution.pending.decrementAndGet(dependant.index) != 0) {
+                        continue;
+                    }
+                    if(next == null) {
+                        next = dependant;
+                    } else {
+                        new NodeAction(execution, dependant).fork();
+                    }
+                }
+                current = next;
+            }
+        }
+    }
+}
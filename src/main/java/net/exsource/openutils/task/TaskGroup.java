@@ -0,0 +1,135 @@
+package net.exsource.openutils.task;
+
+import net.exsource.openlogger.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A TaskGroup runs the firings of its tasks away from the scheduler threads, by default every firing
+ * gets its own virtual thread. This is made for tasks which block, like file or network I/O.
+ * Only {@link #getLimit()} firings of the group run at the same time, the rest waits in a queue without
+ * holding any thread. On runtimes without virtual threads a cached pool of daemon threads is used.
+ * <pre>{@code
+ * TaskGroup downloads = new TaskGroup("downloads", 8);
+ * TaskManager.runTask(downloads, new PeriodTask() { ... }, 0, 30, TimeUnit.SECONDS);
+ * }</pre>
+ * @since 1.2.0
+ * @author Daniel Ramke
+ */
+@SuppressWarnings("unused")
+public class TaskGroup {
+
+    private static final Logger logger = Logger.getLogger();
+
+    private final String name;
+    private final int limit;
+    private final Executor executor;
+    private final boolean ownsExecutor;
+    private final Semaphore permits;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+
+    public TaskGroup(@NotNull String name, int limit) {
+        this(name, limit, createExecutor(name), true);
+    }
+
+    /**
+     * @param executor runs the firings, it's not shut down by {@link #shutdown()}.
+     */
+    public TaskGroup(@NotNull String name, int limit, @NotNull Executor executor) {
+        this(name, limit, executor, false);
+    }
+
+    private TaskGroup(String name, int limit, Executor executor, boolean ownsExecutor) {
+        if(limit < 1) {
+            throw new IllegalArgumentException("The limit of a TaskGroup can't be less than 1, was " + limit + "!");
+        }
+        this.name = name;
+        this.limit = limit;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.permits = new Semaphore(limit);
+    }
+
+    /**
+     * Queues the command and starts it as soon as the group has a free slot. This never blocks the caller.
+     */
+    void execute(Runnable command) {
+        queue.add(command);
+        drain();
+    }
+
+    private void drain() {
+        while(!queue.isEmpty() && permits.tryAcquire()) {
+            Runnable next = queue.poll();
+            if(next == null) {
+                permits.release();
+                continue;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        next.run();
+                    } finally {
+                        permits.release();
+                        drain();
+                    }
+                });
+            } catch (RuntimeException exception) {
+                permits.release();
+                logger.error(exception);
+            }
+        }
+    }
+
+    /**
+     * Stops the own executor of the group, queued firings are dropped.
+     */
+    public void shutdown() {
+        queue.clear();
+        if(ownsExecutor) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getActiveCount() {
+        return limit - permits.availablePermits();
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Uses {@code Executors.newVirtualThreadPerTaskExecutor()} if the runtime has it, the lookup is done
+     * by reflection so the library still runs on older runtimes.
+     */
+    private static ExecutorService createExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException exception) {
+            logger.debug("Virtual threads aren't available, TaskGroup " + name + " uses a thread pool!");
+        }
+
+        AtomicInteger threads = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "TaskGroup-" + name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
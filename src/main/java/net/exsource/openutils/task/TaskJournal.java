@@ -0,0 +1,354 @@
+package net.exsource.openutils.task;
+
+import net.exsource.openlogger.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * A TaskJournal keeps delayed tasks over a restart. Code can't be stored, so every task has a type and a
+ * payload string, the type is mapped to a factory which builds the {@link Task} from the payload again.
+ * Each schedule, run and cancel is appended as one line to the journal file. On {@link #recover()} the
+ * file is read once, the pending entries are scheduled with their remaining time and the file is rewritten
+ * with only these entries, so it never grows beyond the pending tasks of the last start.
+ * <pre>{@code
+ * TaskJournal journal = new TaskJournal(Path.of("tasks.journal"));
+ * journal.registerType("reminder", payload -> new ReminderTask(payload));
+ * journal.recover();
+ * journal.runTaskLater("reminder", "user=42", 2, TimeUnit.HOURS);
+ * }</pre>
+ * Only tasks which run once are stored, periodic tasks are registered by the code at every start anyway.
+ * <p>
+ * Every line ends with a checksum, a line which was torn by a crash is skipped on recover. Each line is
+ * forced to the disk before the call returns, so a task is stored once {@link #runTaskLater} returns.
+ * Closing the journal before {@link TaskManager#cleanup()} keeps the pending tasks for the next start.
+ * The rename after the compaction isn't forced to the directory, after a power loss in that moment the
+ * journal can be the old uncompacted one, which still recovers to the same pending tasks.
+ * @since 1.2.0
+ * @author Daniel Ramke
+ */
+@SuppressWarnings("unused")
+public class TaskJournal {
+
+    private static final Logger logger = Logger.getLogger();
+
+    private static final char SCHEDULED = 'S';
+    private static final char DONE = 'D';
+    private static final char CANCELLED = 'C';
+
+    private final Path file;
+    private final String prefix;
+    private final Map<String, Function<String, Task>> types = new ConcurrentHashMap<>();
+    private final Map<String, Entry> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private FileOutputStream output;
+    private BufferedWriter writer;
+
+    public TaskJournal(@NotNull Path file) {
+        this.file = file;
+        // The path makes the task names unique between the journals of one process.
+        this.prefix = "Journal-" + file.toAbsolutePath().normalize() + "#";
+        if(prefix.indexOf('\t') >= 0 || prefix.indexOf('\n') >= 0 || prefix.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("The path " + file + " can't contain tabs or line breaks!");
+        }
+    }
+
+    /**
+     * Registers the factory which builds the tasks of a type, it has to be done before {@link #recover()}.
+     */
+    public void registerType(@NotNull String type, @NotNull Function<String, Task> factory) {
+        if(type.indexOf('\t') >= 0) {
+            throw new IllegalArgumentException("The type " + type + " can't contain tabs!");
+        }
+        types.put(type, factory);
+    }
+
+    /**
+     * Reads the journal, schedules all pending tasks of known types and compacts the file.
+     * Tasks which are overdue run right away. Pending entries of unknown types stay in the journal.
+     * @return int - the number of scheduled tasks.
+     */
+    public synchronized int recover() throws IOException {
+        if(writer != null) {
+            throw new IllegalStateException("The journal " + file + " is already recovered!");
+        }
+
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        if(Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while((line = reader.readLine()) != null) {
+                    read(line, entries);
+                }
+            }
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp.toFile());
+             BufferedWriter compacted = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
+            for(Entry entry : entries.values()) {
+                compacted.write(entry.toLine());
+                compacted.newLine();
+            }
+            compacted.flush();
+            stream.getChannel().force(true);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        openWriter();
+
+        int recovered = 0;
+        for(Entry entry : entries.values()) {
+            Function<String, Task> factory = types.get(entry.type);
+            if(factory == null) {
+                logger.warn("The journal entry " + entry.id + " has the unknown type " + entry.type + ", it's kept for later!");
+                continue;
+            }
+            try {
+                schedule(entry, factory);
+                recovered++;
+            } catch (RuntimeException exception) {
+                logger.warn("The journal entry " + entry.id + " can't be scheduled, it's kept for later!");
+                logger.error(exception);
+            }
+        }
+        logger.debug("Recovered " + recovered + " task(s) from " + file + "!");
+        return recovered;
+    }
+
+    /**
+     * Schedules the task and stores it in the journal.
+     * @param type a type which was registered by {@link #registerType(String, Function)}.
+     * @param payload the value the factory gets to build the task.
+     * @return TaskTimer - the timer, its name is the id in the journal.
+     * @throws IllegalStateException if the journal wasn't recovered yet, the ids of the old entries are unknown before.
+     */
+    public TaskTimer runTaskLater(@NotNull String type, @NotNull String payload, long time, TimeUnit unit) throws IOException {
+        Function<String, Task> factory = types.get(type);
+        if(factory == null) {
+            throw new IllegalArgumentException("The type " + type + " isn't registered!");
+        }
+
+        // The lock keeps the done line of a fast task behind the line which stores it.
+        synchronized (this) {
+            if(writer == null) {
+                throw new IllegalStateException("The journal " + file + " has to be recovered before tasks are added!");
+            }
+            Entry entry = new Entry(prefix + sequence.incrementAndGet(), type,
+                    System.currentTimeMillis() + Math.max(1L, unit.toMillis(time)), payload);
+            TaskTimer timer = schedule(entry, factory);
+            try {
+                append(entry.toLine());
+            } catch (IOException exception) {
+                pending.remove(entry.id);
+                timer.cancel();
+                throw exception;
+            }
+            return timer;
+        }
+    }
+
+    /**
+     * Cancels the task and removes it from the journal, cancelling the {@link TaskTimer} does the same.
+     * @return boolean - true if the task was pending.
+     */
+    public boolean cancel(@NotNull String id) {
+        Entry entry = pending.remove(id);
+        if(entry == null) {
+            return false;
+        }
+        TaskTimer timer = TaskManager.getByName(id);
+        if(timer != null) {
+            timer.cancel();
+        }
+        appendQuietly(line(CANCELLED + "\t" + id));
+        return true;
+    }
+
+    public boolean isPending(@NotNull String id) {
+        return pending.containsKey(id);
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    private synchronized boolean isOpen() {
+        return writer != null;
+    }
+
+    /**
+     * Closes the file, tasks which are cancelled afterwards stay in the journal for the next start.
+     */
+    public synchronized void close() throws IOException {
+        if(writer != null) {
+            writer.close();
+            writer = null;
+            output = null;
+        }
+    }
+
+    /**
+     * Schedules the task under the id of the entry, nothing is kept if the scheduling fails.
+     */
+    private TaskTimer schedule(Entry entry, Function<String, Task> factory) {
+        Task task = factory.apply(entry.payload);
+        Task journaled = new Task() {
+            @Override
+            public void runTask() {
+                try {
+                    task.run();
+                } finally {
+                    if(pending.remove(entry.id) != null) {
+                        appendQuietly(line(DONE + "\t" + entry.id));
+                    }
+                }
+            }
+        };
+        pending.put(entry.id, entry);
+        TaskTimer timer;
+        try {
+            long delay = Math.max(1L, entry.due - System.currentTimeMillis());
+            timer = TaskManager.runTaskLater(entry.id, journaled, delay, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException exception) {
+            pending.remove(entry.id);
+            throw exception;
+        }
+        // A run removes the entry first, so this only catches cancels from outside, like TaskManager.cleanup().
+        journaled.onCompletion(() -> {
+            if(pending.remove(entry.id) != null && isOpen()) {
+                appendQuietly(line(CANCELLED + "\t" + entry.id));
+            }
+        });
+        return timer;
+    }
+
+    private void read(String line, Map<String, Entry> entries) {
+        int split = line.lastIndexOf('\t');
+        if(split < 0 || !checksum(line.substring(0, split)).equals(line.substring(split + 1))) {
+            logger.warn("Skipping the broken journal line: " + line);
+            return;
+        }
+
+        String[] parts = line.substring(0, split).split("\t", -1);
+        if(parts.length < 2 || parts[0].length() != 1) {
+            logger.warn("Skipping the broken journal line: " + line);
+            return;
+        }
+
+        try {
+            switch (parts[0].charAt(0)) {
+                case SCHEDULED -> {
+                    if(parts.length != 5) {
+                        logger.warn("Skipping the broken journal line: " + line);
+                        return;
+                    }
+                    Entry entry = new Entry(parts[1], parts[2], Long.parseLong(parts[3]),
+                            new String(Base64.getDecoder().decode(parts[4]), StandardCharsets.UTF_8));
+                    entries.put(entry.id, entry);
+                    updateSequence(entry.id);
+                }
+                case DONE, CANCELLED -> entries.remove(parts[1]);
+                default -> logger.warn("Skipping the broken journal line: " + line);
+            }
+        } catch (IllegalArgumentException exception) {
+            logger.warn("Skipping the broken journal line: " + line);
+        }
+    }
+
+    /**
+     * Takes the number at the end of the id, so new ids never collide with recovered ones.
+     */
+    private void updateSequence(String id) {
+        int start = id.length();
+        while(start > 0 && Character.isDigit(id.charAt(start - 1))) {
+            start--;
+        }
+        if(start == id.length() || id.length() - start > 18) {
+            return;
+        }
+        sequence.accumulateAndGet(Long.parseLong(id.substring(start)), Math::max);
+    }
+
+    private synchronized void append(String line) throws IOException {
+        if(writer == null) {
+            throw new IOException("The journal " + file + " is closed!");
+        }
+        writer.write(line);
+        writer.newLine();
+        writer.flush();
+        output.getChannel().force(false);
+    }
+
+    private void appendQuietly(String line) {
+        try {
+            append(line);
+        } catch (IOException exception) {
+            logger.error(exception);
+        }
+    }
+
+    private void openWriter() throws IOException {
+        if(writer == null) {
+            output = new FileOutputStream(file.toFile(), true);
+            writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * @return String - the line with its checksum at the end.
+     */
+    private static String line(String content) {
+        return content + "\t" + checksum(content);
+    }
+
+    private static String checksum(String content) {
+        CRC32 crc = new CRC32();
+        crc.update(content.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static final class Entry {
+
+        private final String id;
+        private final String type;
+        private final long due;
+        private final String payload;
+
+        private Entry(String id, String type, long due, String payload) {
+            this.id = id;
+            this.type = type;
+            this.due = due;
+            this.payload = payload;
+        }
+
+        private String toLine() {
+            return line(SCHEDULED + "\t" + id + "\t" + type + "\t" + due + "\t"
+                    + Base64.getEncoder().encodeToString(payload.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+}
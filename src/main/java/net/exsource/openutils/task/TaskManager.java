@@ -1,36 +1,120 @@
 package net.exsource.openutils.task;
 
 import net.exsource.openlogger.Logger;
-import net.exsource.openutils.enums.StringPattern;
 import net.exsource.openutils.tools.Commons;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class TaskManager {
 
     private static final Logger logger = Logger.getLogger();
-    private static final Map<String, TaskTimer> tasks = new HashMap<>();
+    /**
+     * Contains only the live tasks, every {@link Task} removes its timer by itself once it's finished or cancelled.
+     */
+    private static final Map<String, TaskTimer> tasks = new ConcurrentHashMap<>();
+    private static final AtomicLong serials = new AtomicLong();
+    private static volatile TaskEngine engine = new PoolTaskEngine();
+
+    /**
+     * Replaces the engine for all tasks scheduled from now on. Tasks which are already scheduled
+     * stay on the old engine, it's up to you to {@link TaskEngine#shutdown()} it once they are done.
+     * @param taskEngine the new engine, like a {@link TimingWheelTaskEngine}.
+     * @return TaskEngine - the engine which was used before.
+     */
+    public static TaskEngine setEngine(@NotNull TaskEngine taskEngine) {
+        TaskEngine previous = engine;
+        engine = taskEngine;
+        logger.debug("TaskManager uses " + taskEngine.getClass().getSimpleName() + " now!");
+        return previous;
+    }
+
+    public static TaskEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Changes the number of threads which run the scheduled tasks, by default one per processor.
+     * This only works while the {@link PoolTaskEngine} is used.
+     * @param size the new pool size, at least 1.
+     */
+    public static void setPoolSize(int size) {
+        if(size < 1) {
+            logger.warn("The pool size can't be less than 1, was " + size + "!");
+            return;
+        }
+        if(!(engine instanceof PoolTaskEngine pool)) {
+            logger.warn("The pool size can't be changed, the current engine isn't a pool!");
+            return;
+        }
+        pool.setPoolSize(size);
+    }
+
+    public static int getPoolSize() {
+        return engine instanceof PoolTaskEngine pool ? pool.getPoolSize() : 0;
+    }
 
     public static TaskTimer runTaskLater(@NotNull TimerTask task, long time, TimeUnit unit) {
+        return runTaskLater(generateSerialID(), task, time, unit);
+    }
+
+    /**
+     * Runs the task once after the given time, the timer is registered under the given name.
+     * @throws IllegalArgumentException if a live task with the same name already exists.
+     */
+    public static TaskTimer runTaskLater(@NotNull String name, @NotNull TimerTask task, long time, TimeUnit unit) {
+        return runTaskLater(name, null, task, time, unit);
+    }
+
+    /**
+     * Runs the task once after the given time inside the group, see {@link TaskGroup}.
+     */
+    public static TaskTimer runTaskLater(@NotNull TaskGroup group, @NotNull TimerTask task, long time, TimeUnit unit) {
+        return runTaskLater(generateSerialID(), group, task, time, unit);
+    }
+
+    private static TaskTimer runTaskLater(String name, TaskGroup group, TimerTask task, long time, TimeUnit unit) {
         long delay = Commons.convertTimeToMillis(time, unit);
         if(delay <= 0) {
             delay = 1000L;
         }
 
-        TaskTimer timer = new TaskTimer();
+        TaskTimer timer = createTimer(name, group);
         timer.schedule(task, delay);
-        tasks.put(timer.getName(), timer);
-        logger.debug("Added new task: " + timer.getName());
-        return timer;
+        return register(timer);
     }
 
     public static TaskTimer runTask(@NotNull TimerTask task, long delay, long period, TimeUnit unit) {
+        return runTask(generateSerialID(), task, delay, period, unit);
+    }
+
+    /**
+     * Runs the task periodically, the timer is registered under the given name.
+     * @throws IllegalArgumentException if a live task with the same name already exists.
+     */
+    public static TaskTimer runTask(@NotNull String name, @NotNull TimerTask task, long delay, long period, TimeUnit unit) {
+        return runTask(name, null, task, delay, period, unit);
+    }
+
+    /**
+     * Runs the task periodically inside the group, see {@link TaskGroup}. A firing is skipped
+     * while the previous firing of the same task is still queued or running.
+     */
+    public static TaskTimer runTask(@NotNull TaskGroup group, @NotNull TimerTask task, long delay, long period, TimeUnit unit) {
+        return runTask(generateSerialID(), group, task, delay, period, unit);
+    }
+
+    private static TaskTimer runTask(String name, TaskGroup group, TimerTask task, long delay, long period, TimeUnit unit) {
         long callLater = Commons.convertTimeToMillis(delay, unit);
         long runTime = Commons.convertTimeToMillis(period, unit);
         if(callLater < 0) {
@@ -40,9 +124,28 @@ public class TaskManager {
             runTime = 1000L;
         }
 
-        TaskTimer timer = new TaskTimer();
+        TaskTimer timer = createTimer(name, group);
         timer.scheduleAtFixedRate(task, callLater, runTime);
-        tasks.put(timer.getName(), timer);
+        return register(timer);
+    }
+
+    private static TaskTimer createTimer(String name, TaskGroup group) {
+        if(existTask(name)) {
+            throw new IllegalArgumentException("A task with the name " + name + " is already running!");
+        }
+        return new TaskTimer(name, group);
+    }
+
+    /**
+     * Adds the scheduled timer to the registry, the hook is set after the put so a task
+     * which is already finished removes its entry directly.
+     */
+    private static TaskTimer register(TaskTimer timer) {
+        if(tasks.putIfAbsent(timer.getName(), timer) != null) {
+            timer.cancel();
+            throw new IllegalArgumentException("A task with the name " + timer.getName() + " is already running!");
+        }
+        timer.getTask().onCompletion(() -> tasks.remove(timer.getName(), timer));
         logger.debug("Added new task: " + timer.getName());
         return timer;
     }
@@ -53,63 +156,149 @@ public class TaskManager {
             return;
         }
 
-        if(!timer.isAlive() && existTask(timer.getName())) {
-            tasks.remove(timer.getName());
+        if(!timer.isAlive() && tasks.remove(timer.getName(), timer)) {
             logger.debug("Remove TaskTimer: " + timer.getName());
         }
     }
 
     public static void flushAllDumped() {
-        for(TaskTimer timer : getNeedDumped()) {
-            flush(timer);
-        }
+        tasks.values().removeIf(timer -> !timer.isAlive());
     }
 
     public static void cleanup() {
-        flushAllDumped();
-        List<TaskTimer> cleanerList = new ArrayList<>();
-        for(Map.Entry<String, TaskTimer> timers : tasks.entrySet()) {
-            TaskTimer current = timers.getValue();
-            if(current.isAlive()) {
-                current.getTask().cancel();
-            }
-            cleanerList.add(current);
-        }
-
-        for(TaskTimer timer : cleanerList) {
+        for(TaskTimer timer : tasks.values()) {
+            timer.cancel();
             flush(timer);
         }
-        cleanerList.clear();
         logger.debug("Clearing all task successfully!");
     }
 
     public static TaskTimer getByName(@NotNull String name) {
-        if(tasks.containsKey(name)) {
-            return tasks.get(name);
-        }
-        return null;
+        return tasks.get(name);
     }
 
     public static boolean existTask(@NotNull String name) {
-        return getByName(name) != null;
+        return tasks.containsKey(name);
     }
 
     public static List<TaskTimer> getNeedDumped() {
         List<TaskTimer> dump = new ArrayList<>();
-        for(Map.Entry<String, TaskTimer> timer : tasks.entrySet()) {
-            if(!timer.getValue().isAlive()) {
-                dump.add(timer.getValue());
+        for(TaskTimer timer : tasks.values()) {
+            if(!timer.isAlive()) {
+                dump.add(timer);
             }
         }
         return dump;
     }
 
-    public static String generateSerialID() {
-        String serialID = "TaskTimer-" + Commons.generateString(StringPattern.NUMBERS, 4);
-        if(existTask(serialID) && !tasks.isEmpty()) {
-            return generateSerialID();
+    /**
+     * @return Collection - a live view of the registered timers.
+     */
+    static Collection<TaskTimer> getTimers() {
+        return tasks.values();
+    }
+
+    static void schedule(Task task, long delay, long period, boolean fixedRate, TaskGroup group) {
+        if(TaskMetrics.enabled) {
+            TaskMetrics.recordScheduled();
+        }
+        if(period > 0 && task instanceof PeriodTask periodic) {
+            new PeriodRunner(periodic, engine, group, period, fixedRate).start(delay);
+            return;
+        }
+
+        if(period > 0) {
+            task.setPeriodic();
+        }
+        long planned = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+        Runnable command;
+        if(group == null) {
+            command = period > 0 ? () -> runPeriodic(task) : () -> runOnce(task, planned);
+        } else if(period > 0) {
+            AtomicBoolean pending = new AtomicBoolean();
+            command = () -> {
+                if(pending.compareAndSet(false, true)) {
+                    group.execute(() -> {
+                        try {
+                            if(task.isAlive()) {
+                                runPeriodic(task);
+                            }
+                        } finally {
+                            pending.set(false);
+                        }
+                    });
+                }
+            };
+        } else {
+            command = () -> group.execute(() -> {
+                if(task.isAlive()) {
+                    runOnce(task, planned);
+                }
+            });
         }
-        return serialID;
+
+        TaskEngine current = engine;
+        Future<?> future;
+        try {
+            if(period <= 0) {
+                future = current.schedule(command, delay, TimeUnit.MILLISECONDS);
+            } else if(fixedRate) {
+                future = current.scheduleAtFixedRate(command, delay, period, TimeUnit.MILLISECONDS);
+            } else {
+                future = current.scheduleWithFixedDelay(command, delay, period, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException exception) {
+            if(TaskMetrics.enabled) {
+                TaskMetrics.recordRejected();
+            }
+            throw exception;
+        }
+        task.setFuture(future);
+    }
+
+    private static void runOnce(Task task, long planned) {
+        boolean measured = TaskMetrics.enabled;
+        long start = measured ? System.nanoTime() : 0L;
+        boolean failed = false;
+        try {
+            task.run();
+        } catch (Throwable throwable) {
+            failed = true;
+            logger.error(throwable);
+        }
+        if(measured) {
+            TaskMetrics.recordRun(Math.max(0L, start - planned), System.nanoTime() - start, failed);
+        }
+    }
+
+    private static void runPeriodic(Task task) {
+        boolean measured = TaskMetrics.enabled;
+        long start = measured ? System.nanoTime() : 0L;
+        boolean failed = false;
+        try {
+            task.run();
+        } catch (Throwable throwable) {
+            failed = true;
+            logger.error(throwable);
+            task.cancel();
+        }
+        if(measured) {
+            TaskMetrics.recordRun(task, -1L, System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Generates the next free timer name, the names are counted up so they never collide
+     * with each other during the runtime. Numbers which are taken by a task named like
+     * TaskTimer-3 by the code are skipped.
+     * @return String - the name like TaskTimer-42.
+     */
+    public static String generateSerialID() {
+        String id;
+        do {
+            id = "TaskTimer-" + serials.incrementAndGet();
+        } while (tasks.containsKey(id));
+        return id;
     }
 
 }
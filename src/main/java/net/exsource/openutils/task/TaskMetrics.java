@@ -0,0 +1,388 @@
+package net.exsource.openutils.task;
+
+import net.exsource.openlogger.Logger;
+import net.exsource.openutils.tools.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TaskMetrics is the optional instrumentation of the {@link TaskManager}. It records how late the tasks
+ * start compared to their planned time (lag), how long they run, failures, overruns and rejected schedules,
+ * globally and per registered task. The queue depth is read from the current {@link TaskEngine}.
+ * The recording is off by default, then the only cost is one volatile read per run. A task gets its
+ * histograms with the first recorded run, so tasks which run while the recording is off cost no memory.
+ * Tasks which run once are only counted globally, they are gone from the {@link TaskManager} after the run.
+ * The global values are striped over the threads and summed up by {@link #snapshot()}, so the workers
+ * don't contend on the same counters.
+ * You can query the values by {@link #snapshot()} or over JMX after calling {@link #registerMBean()}.
+ * @since 1.2.0
+ * @author Daniel Ramke
+ */
+@SuppressWarnings("unused")
+public final class TaskMetrics {
+
+    private static final Logger logger = Logger.getLogger();
+    private static final String OBJECT_NAME = "net.exsource.openutils:type=TaskMetrics";
+
+    static volatile boolean enabled = false;
+
+    private static final Recorder[] global = createStripes();
+    private static final LongAdder scheduled = new LongAdder();
+    private static final LongAdder rejected = new LongAdder();
+
+    private TaskMetrics() {
+    }
+
+    public static void setEnabled(boolean enable) {
+        if(enable && !enabled) {
+            reset();
+        }
+        enabled = enable;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Clears all recorded values of the global and the registered tasks.
+     */
+    public static void reset() {
+        for(Recorder stripe : global) {
+            stripe.reset();
+        }
+        scheduled.reset();
+        rejected.reset();
+        for(TaskTimer timer : TaskManager.getTimers()) {
+            Task task = timer.getTask();
+            if(task != null && task.getRecorder() != null) {
+                task.getRecorder().reset();
+            }
+        }
+    }
+
+    public static Snapshot snapshot() {
+        List<TaskStatistics> tasks = new ArrayList<>();
+        for(TaskTimer timer : TaskManager.getTimers()) {
+            Task task = timer.getTask();
+            if(task != null && task.getRecorder() != null) {
+                tasks.add(task.getRecorder().statistics(timer.getName()));
+            }
+        }
+        Recorder sum = new Recorder();
+        for(Recorder stripe : global) {
+            sum.add(stripe);
+        }
+        return new Snapshot(sum.statistics("global"), Collections.unmodifiableList(tasks), scheduled.sum(),
+                rejected.sum(), TaskManager.getEngine().getQueueSize(), TaskManager.getTimers().size());
+    }
+
+    /**
+     * Registers the {@link TaskMetricsMXBean} at the platform MBean server under
+     * {@code net.exsource.openutils:type=TaskMetrics}. Calling it twice does nothing.
+     */
+    public static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if(!server.isRegistered(name)) {
+                server.registerMBean(new MXBean(), name);
+            }
+        } catch (JMException exception) {
+            logger.error(exception);
+        }
+    }
+
+    public static void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if(server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException exception) {
+            logger.error(exception);
+        }
+    }
+
+    static void recordScheduled() {
+        scheduled.increment();
+    }
+
+    static void recordRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * Records the run globally and for the task, a task which is already dead only gets a run
+     * recorded if it has its recorder already, so dead tasks never allocate one.
+     * @param lag the nanoseconds the run started after its planned time, negative if it's unknown.
+     */
+    static void recordRun(Task task, long lag, long duration, boolean failed) {
+        stripe().record(lag, duration, failed);
+        Recorder recorder = recorderOf(task);
+        if(recorder != null) {
+            recorder.record(lag, duration, failed);
+        }
+    }
+
+    /**
+     * Records the run of a task which runs once, only globally.
+     */
+    static void recordRun(long lag, long duration, boolean failed) {
+        stripe().record(lag, duration, failed);
+    }
+
+    static void recordOverrun(Task task) {
+        stripe().overruns.increment();
+        Recorder recorder = recorderOf(task);
+        if(recorder != null) {
+            recorder.overruns.increment();
+        }
+    }
+
+    private static Recorder recorderOf(Task task) {
+        return task.isAlive() ? task.recorder() : task.getRecorder();
+    }
+
+    private static Recorder stripe() {
+        return global[(int) Thread.currentThread().getId() & (global.length - 1)];
+    }
+
+    private static Recorder[] createStripes() {
+        int count = Integer.highestOneBit(Math.min(64, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        Recorder[] stripes = new Recorder[count];
+        for(int index = 0; index < count; index++) {
+            stripes[index] = new Recorder();
+        }
+        return stripes;
+    }
+
+    /**
+     * The counters of a single task or of all tasks together.
+     */
+    static final class Recorder {
+
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder overruns = new LongAdder();
+        private final LatencyHistogram lag = new LatencyHistogram();
+        private final LatencyHistogram duration = new LatencyHistogram();
+
+        void record(long lagNanos, long durationNanos, boolean failed) {
+            executions.increment();
+            if(failed) {
+                failures.increment();
+            }
+            if(lagNanos >= 0) {
+                lag.record(lagNanos);
+            }
+            duration.record(durationNanos);
+        }
+
+        void add(Recorder other) {
+            executions.add(other.executions.sum());
+            failures.add(other.failures.sum());
+            overruns.add(other.overruns.sum());
+            lag.add(other.lag);
+            duration.add(other.duration);
+        }
+
+        void reset() {
+            executions.reset();
+            failures.reset();
+            overruns.reset();
+            lag.reset();
+            duration.reset();
+        }
+
+        private TaskStatistics statistics(String name) {
+            return new TaskStatistics(name, executions.sum(), failures.sum(), overruns.sum(),
+                    (long) lag.getMean(), lag.getPercentile(99D), lag.getMax(),
+                    (long) duration.getMean(), duration.getPercentile(50D), duration.getPercentile(99D), duration.getMax());
+        }
+    }
+
+    public static final class Snapshot {
+
+        private final TaskStatistics global;
+        private final List<TaskStatistics> tasks;
+        private final long scheduled;
+        private final long rejected;
+        private final int queueDepth;
+        private final int activeTasks;
+
+        private Snapshot(TaskStatistics global, List<TaskStatistics> tasks, long scheduled, long rejected,
+                         int queueDepth, int activeTasks) {
+            this.global = global;
+            this.tasks = tasks;
+            this.scheduled = scheduled;
+            this.rejected = rejected;
+            this.queueDepth = queueDepth;
+            this.activeTasks = activeTasks;
+        }
+
+        /**
+         * @return TaskStatistics - the values of all tasks together, also the ones which are already done.
+         */
+        public TaskStatistics getGlobal() {
+            return global;
+        }
+
+        /**
+         * @return List - the values of the tasks which are registered at the {@link TaskManager} right now.
+         */
+        public List<TaskStatistics> getTasks() {
+            return tasks;
+        }
+
+        public long getScheduled() {
+            return scheduled;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getActiveTasks() {
+            return activeTasks;
+        }
+    }
+
+    /**
+     * The statistics of a task, all durations in nanoseconds.
+     */
+    public static final class TaskStatistics {
+
+        private final String name;
+        private final long executions;
+        private final long failures;
+        private final long overruns;
+        private final long meanLagNanos;
+        private final long p99LagNanos;
+        private final long maxLagNanos;
+        private final long meanNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+
+        public TaskStatistics(String name, long executions, long failures, long overruns, long meanLagNanos,
+                              long p99LagNanos, long maxLagNanos, long meanNanos, long p50Nanos, long p99Nanos,
+                              long maxNanos) {
+            this.name = name;
+            this.executions = executions;
+            this.failures = failures;
+            this.overruns = overruns;
+            this.meanLagNanos = meanLagNanos;
+            this.p99LagNanos = p99LagNanos;
+            this.maxLagNanos = maxLagNanos;
+            this.meanNanos = meanNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getExecutions() {
+            return executions;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getOverruns() {
+            return overruns;
+        }
+
+        public long getMeanLagNanos() {
+            return meanLagNanos;
+        }
+
+        public long getP99LagNanos() {
+            return p99LagNanos;
+        }
+
+        public long getMaxLagNanos() {
+            return maxLagNanos;
+        }
+
+        public long getMeanNanos() {
+            return meanNanos;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+    }
+
+    private static final class MXBean implements TaskMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return TaskMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            TaskMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public void reset() {
+            TaskMetrics.reset();
+        }
+
+        @Override
+        public TaskStatistics getGlobalStatistics() {
+            return snapshot().getGlobal();
+        }
+
+        @Override
+        public List<TaskStatistics> getTaskStatistics() {
+            return snapshot().getTasks();
+        }
+
+        @Override
+        public long getScheduledCount() {
+            return scheduled.sum();
+        }
+
+        @Override
+        public long getRejectedCount() {
+            return rejected.sum();
+        }
+
+        @Override
+        public int getQueueDepth() {
+            return TaskManager.getEngine().getQueueSize();
+        }
+
+        @Override
+        public int getActiveTasks() {
+            return TaskManager.getTimers().size();
+        }
+    }
+}
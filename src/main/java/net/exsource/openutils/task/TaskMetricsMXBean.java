@@ -0,0 +1,29 @@
+package net.exsource.openutils.task;
+
+import java.util.List;
+
+/**
+ * The JMX view of the {@link TaskMetrics}, registered by {@link TaskMetrics#registerMBean()}.
+ * @since 1.2.0
+ */
+public interface TaskMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    void reset();
+
+    TaskMetrics.TaskStatistics getGlobalStatistics();
+
+    List<TaskMetrics.TaskStatistics> getTaskStatistics();
+
+    long getScheduledCount();
+
+    long getRejectedCount();
+
+    int getQueueDepth();
+
+    int getActiveTasks();
+
+}
@@ -2,13 +2,17 @@ package net.exsource.openutils.task;
 
 import net.exsource.openutils.tools.Commons;
 
-import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.TimeUnit;
 
-public class TaskTimer extends Timer {
+/**
+ * TaskTimer is the handle of a scheduled {@link Task}. It doesn't own a thread anymore,
+ * all timers share the scheduler pool of the {@link TaskManager}.
+ */
+public class TaskTimer {
 
     private final String name;
+    private final TaskGroup group;
     private Task task;
 
     private long delay;
@@ -19,34 +23,44 @@ public class TaskTimer extends Timer {
     }
 
     public TaskTimer(String name) {
-        super(name);
+        this(name, null);
+    }
+
+    /**
+     * @param group the group which runs the firings, null to run them on the threads of the {@link TaskEngine}.
+     */
+    public TaskTimer(String name, TaskGroup group) {
         this.name = name;
+        this.group = group;
         this.task = null;
         this.delay = 0L;
         this.period = 0L;
     }
 
-    @Override
     public void schedule(TimerTask task, long delay) {
-        super.schedule(task, delay);
         this.task = (Task) task;
         this.delay = delay;
+        TaskManager.schedule(this.task, delay, 0L, false, group);
     }
 
-    @Override
     public void schedule(TimerTask task, long delay, long period) {
-        super.schedule(task, delay, period);
         this.task = (Task) task;
         this.delay = delay;
         this.period = period;
+        TaskManager.schedule(this.task, delay, period, false, group);
     }
 
-    @Override
     public void scheduleAtFixedRate(TimerTask task, long delay, long period) {
-        super.scheduleAtFixedRate(task, delay, period);
         this.task = (Task) task;
         this.delay = delay;
         this.period = period;
+        TaskManager.schedule(this.task, delay, period, true, group);
+    }
+
+    public void cancel() {
+        if(task != null) {
+            task.cancel();
+        }
     }
 
     public Task getTask() {
@@ -57,6 +71,10 @@ public class TaskTimer extends Timer {
         return task != null && task.isAlive();
     }
 
+    public TaskGroup getGroup() {
+        return group;
+    }
+
     public String getName() {
         return name;
     }
@@ -0,0 +1,99 @@
+package net.exsource.openutils.task;
+
+import net.exsource.openlogger.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Throttler runs its action at most once per interval. The first trigger runs the action directly on
+ * the calling thread, all triggers inside the interval are merged into one run at its end, which is
+ * scheduled at the {@link TaskEngine} of the {@link TaskManager}. Triggering costs a compare-and-set, no lock.
+ * <pre>{@code
+ * Throttler redraw = new Throttler(() -> window.redraw(), 16, TimeUnit.MILLISECONDS);
+ * redraw.trigger(); // on every update
+ * }</pre>
+ * @since 1.2.0
+ * @author Daniel Ramke
+ */
+@SuppressWarnings("unused")
+public class Throttler {
+
+    private static final Logger logger = Logger.getLogger();
+
+    private final Runnable action;
+    private final long interval;
+    private final AtomicLong nextAllowed;
+    private final AtomicBoolean trailing = new AtomicBoolean();
+    private final AtomicLong executions = new AtomicLong();
+
+    public Throttler(@NotNull Runnable action, long interval, @NotNull TimeUnit unit) {
+        if(interval <= 0) {
+            throw new IllegalArgumentException("The interval has to be greater than 0, was " + interval + "!");
+        }
+        this.action = action;
+        this.interval = unit.toNanos(interval);
+        this.nextAllowed = new AtomicLong(System.nanoTime() - this.interval);
+    }
+
+    public void trigger() {
+        long now = System.nanoTime();
+        long next = nextAllowed.get();
+        if(now - next >= 0L && nextAllowed.compareAndSet(next, now + interval)) {
+            execute();
+            return;
+        }
+
+        if(trailing.compareAndSet(false, true)) {
+            submit(Math.max(0L, nextAllowed.get() - now));
+        }
+    }
+
+    /**
+     * The merged run at the end of the interval.
+     */
+    private void runTrailing() {
+        trailing.set(false);
+        long now = System.nanoTime();
+        long next = nextAllowed.get();
+        if(now - next < 0L) {
+            if(trailing.compareAndSet(false, true)) {
+                submit(next - now);
+            }
+            return;
+        }
+        // If the compare-and-set fails a trigger has just run the action itself.
+        if(nextAllowed.compareAndSet(next, now + interval)) {
+            execute();
+        }
+    }
+
+    private void execute() {
+        executions.incrementAndGet();
+        try {
+            action.run();
+        } catch (Throwable throwable) {
+            logger.error(throwable);
+        }
+    }
+
+    private void submit(long delay) {
+        try {
+            TaskManager.getEngine().schedule(this::runTrailing, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException exception) {
+            trailing.set(false);
+            logger.error(exception);
+        }
+    }
+
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    public long getInterval(@NotNull TimeUnit unit) {
+        return unit.convert(interval, TimeUnit.NANOSECONDS);
+    }
+}
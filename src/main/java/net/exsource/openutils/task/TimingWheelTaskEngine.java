@@ -0,0 +1,343 @@
+package net.exsource.openutils.task;
+
+import net.exsource.openlogger.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timing wheel {@link TaskEngine}. The wheel is a ring of buckets, each bucket covers one tick,
+ * timeouts further away than one turn just count down their remaining rounds. Scheduling and cancelling
+ * are O(1): both only add the timeout to a lock-free queue, which the worker thread drains once per tick.
+ * The price is the precision, a task fires up to one tick late.
+ * <p>
+ * By default the tasks run on the worker thread itself, so they should be short. Pass an {@link Executor}
+ * for tasks which block or take longer than a tick.
+ * @since 1.2.0
+ * @author Daniel Ramke
+ */
+@SuppressWarnings("unused")
+public class TimingWheelTaskEngine implements TaskEngine {
+
+    private static final Logger logger = Logger.getLogger();
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor executor;
+    private final Queue<Timeout> pending;
+    private final Queue<Timeout> cancelled;
+    private final AtomicLong scheduled;
+    private final long startTime;
+    private final Thread worker;
+
+    private volatile boolean running;
+    private long tick;
+
+    public TimingWheelTaskEngine() {
+        this(10, TimeUnit.MILLISECONDS, 512);
+    }
+
+    public TimingWheelTaskEngine(long tickDuration, @NotNull TimeUnit unit, int wheelSize) {
+        this(tickDuration, unit, wheelSize, null);
+    }
+
+    /**
+     * @param tickDuration the resolution of the wheel.
+     * @param unit the unit of the tick duration.
+     * @param wheelSize the number of buckets, rounded up to a power of 2. Delays up to
+     *                  tickDuration * wheelSize fit into one turn.
+     * @param executor runs the fired tasks, null runs them on the worker thread.
+     */
+    public TimingWheelTaskEngine(long tickDuration, @NotNull TimeUnit unit, int wheelSize, Executor executor) {
+        if(tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be greater than 0!");
+        }
+
+        int size = Integer.highestOneBit(Math.min(wheelSize, 1 << 30));
+        if(size < wheelSize) {
+            size <<= 1;
+        }
+
+        this.tickNanos = Math.max(unit.toNanos(tickDuration), TimeUnit.MILLISECONDS.toNanos(1));
+        this.wheel = new Bucket[size];
+        for(int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.executor = executor != null ? executor : Runnable::run;
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.cancelled = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicLong();
+        this.running = true;
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::work, "TaskTimer-wheel");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public Future<?> schedule(@NotNull Runnable command, long delay, @NotNull TimeUnit unit) {
+        return add(new Timeout(command, deadlineOf(unit.toNanos(delay)), 0L, false));
+    }
+
+    @Override
+    public Future<?> scheduleAtFixedRate(@NotNull Runnable command, long delay, long period, @NotNull TimeUnit unit) {
+        return add(new Timeout(command, deadlineOf(unit.toNanos(delay)), checkPeriod(unit.toNanos(period)), true));
+    }
+
+    @Override
+    public Future<?> scheduleWithFixedDelay(@NotNull Runnable command, long delay, long period, @NotNull TimeUnit unit) {
+        return add(new Timeout(command, deadlineOf(unit.toNanos(delay)), checkPeriod(unit.toNanos(period)), false));
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    @Override
+    public int getQueueSize() {
+        return (int) Math.min(Integer.MAX_VALUE, scheduled.get());
+    }
+
+    /**
+     * @return long - the number of timeouts which are scheduled and neither fired nor cancelled.
+     */
+    public long getScheduledCount() {
+        return scheduled.get();
+    }
+
+    public long getTickDuration(TimeUnit unit) {
+        return unit.convert(tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public int getWheelSize() {
+        return wheel.length;
+    }
+
+    private Timeout add(Timeout timeout) {
+        if(!running) {
+            throw new RejectedExecutionException("The timing wheel was shut down!");
+        }
+        scheduled.incrementAndGet();
+        pending.add(timeout);
+        return timeout;
+    }
+
+    private long deadlineOf(long delayNanos) {
+        return System.nanoTime() + Math.max(0L, delayNanos) - startTime;
+    }
+
+    private static long checkPeriod(long period) {
+        if(period <= 0) {
+            throw new IllegalArgumentException("The period must be greater than 0!");
+        }
+        return period;
+    }
+
+    private void work() {
+        while (running) {
+            long deadline = waitForNextTick();
+            if(deadline < 0) {
+                break;
+            }
+
+            processCancelled();
+            transferPending();
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+        }
+
+        for(Bucket bucket : wheel) {
+            bucket.clear();
+        }
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            timeout.cancel(false);
+        }
+        cancelled.clear();
+        scheduled.set(0L);
+        logger.debug("TimingWheelTaskEngine stopped!");
+    }
+
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (running) {
+            long current = System.nanoTime() - startTime;
+            long sleep = deadline - current;
+            if(sleep <= 0) {
+                return current;
+            }
+            LockSupport.parkNanos(this, sleep);
+        }
+        return -1L;
+    }
+
+    private void processCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if(timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferPending() {
+        for(int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = pending.poll();
+            if(timeout == null) {
+                return;
+            }
+            if(timeout.isDone()) {
+                continue;
+            }
+
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            wheel[(int) (Math.max(calculated, tick) & mask)].add(timeout);
+        }
+    }
+
+    private final class Timeout extends CompletableFuture<Void> implements Runnable {
+
+        private final Runnable command;
+        private final long period;
+        private final boolean fixedRate;
+        private long deadline;
+
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout previous;
+
+        private Timeout(Runnable command, long deadline, long period, boolean fixedRate) {
+            this.command = command;
+            this.deadline = deadline;
+            this.period = period;
+            this.fixedRate = fixedRate;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean done = super.cancel(mayInterruptIfRunning);
+            if(done) {
+                scheduled.decrementAndGet();
+                cancelled.add(this);
+            }
+            return done;
+        }
+
+        @Override
+        public void run() {
+            if(isDone()) {
+                return;
+            }
+            try {
+                command.run();
+            } catch (Throwable throwable) {
+                if(completeExceptionally(throwable)) {
+                    scheduled.decrementAndGet();
+                }
+                return;
+            }
+
+            if(period == 0L) {
+                if(complete(null)) {
+                    scheduled.decrementAndGet();
+                }
+            } else if(!isDone() && running) {
+                deadline = fixedRate ? deadline + period : deadlineOf(period);
+                pending.add(this);
+            }
+        }
+    }
+
+    /**
+     * A doubly linked list of timeouts, only touched by the worker thread.
+     */
+    private final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if(head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if(timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if(timeout.deadline <= deadline) {
+                        fire(timeout);
+                    } else {
+                        pending.add(timeout);
+                    }
+                } else if(timeout.isDone()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if(timeout.bucket != this) {
+                return;
+            }
+            if(timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            }
+            if(timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            }
+            if(timeout == head) {
+                head = timeout.next;
+            }
+            if(timeout == tail) {
+                tail = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        void clear() {
+            Timeout timeout;
+            while ((timeout = head) != null) {
+                remove(timeout);
+                timeout.cancel(false);
+            }
+        }
+
+        private void fire(Timeout timeout) {
+            try {
+                executor.execute(timeout);
+            } catch (RejectedExecutionException exception) {
+                logger.error(exception);
+                timeout.cancel(false);
+            }
+        }
+    }
+}
@@ -1,24 +1,69 @@
 package net.exsource.openutils;
 
 import net.exsource.openlogger.Logger;
+import net.exsource.openutils.event.EventExecutor;
+import net.exsource.openutils.event.EventHandler;
 import net.exsource.openutils.event.EventManager;
+import net.exsource.openutils.event.EventMetrics;
+import net.exsource.openutils.event.EventPriority;
+import net.exsource.openutils.event.ListenerAdapter;
+import net.exsource.openutils.event.pipeline.EventPipeline;
+import net.exsource.openutils.event.pipeline.ProducerType;
+import net.exsource.openutils.event.pipeline.WaitStrategy;
 import net.exsource.openutils.event.TestEvent;
 import net.exsource.openutils.event.TestListener;
+import net.exsource.openutils.io.ByteSequence;
 import net.exsource.openutils.io.IOController;
 import net.exsource.openutils.io.controller.IniController;
 import net.exsource.openutils.io.controller.PropertiesController;
+import net.exsource.openutils.task.Debouncer;
+import net.exsource.openutils.task.PeriodPolicy;
 import net.exsource.openutils.task.PeriodTask;
+import net.exsource.openutils.task.RateLimiter;
 import net.exsource.openutils.task.Task;
+import net.exsource.openutils.task.TaskEngine;
+import net.exsource.openutils.task.TaskGraph;
+import net.exsource.openutils.task.TaskGroup;
+import net.exsource.openutils.task.TaskJournal;
 import net.exsource.openutils.task.TaskManager;
+import net.exsource.openutils.task.TaskMetrics;
 import net.exsource.openutils.task.TaskTimer;
+import net.exsource.openutils.task.Throttler;
+import net.exsource.openutils.task.TimingWheelTaskEngine;
 import net.exsource.openutils.tools.Commons;
 import net.exsource.openutils.enums.DateFormat;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestManager {
 
@@ -39,6 +84,224 @@ public class TestManager {
         EventManager.callEvent(event);
     }
 
+    @Test
+    void checkListenerAdapterGenerated() {
+        boolean found = false;
+        for(ListenerAdapter<?> adapter : ServiceLoader.load(ListenerAdapter.class)) {
+            found |= adapter.getListenerType().equals(TestListener.class);
+        }
+        assertTrue(found);
+    }
+
+    @Test
+    void checkEventExecutorIsCached() throws Exception {
+        Method method = TestListener.class.getMethod("onExampleEventMonitor", TestEvent.class);
+        assertSame(EventExecutor.create(method), EventExecutor.create(method));
+    }
+
+    @Test
+    void checkEventConcurrentDispatch() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        Object counter = new Object() {
+            @EventHandler
+            public void onTestEvent(TestEvent event) {
+                calls.incrementAndGet();
+            }
+        };
+        EventManager.registerListener(counter);
+
+        Thread[] workers = new Thread[4];
+        for(int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(() -> {
+                for(int j = 0; j < 1000; j++) {
+                    EventManager.callReturnedEvent(new TestEvent());
+                }
+            });
+            workers[i].start();
+        }
+        for(int i = 0; i < 100; i++) {
+            TestListener listener = new TestListener();
+            EventManager.registerListener(listener);
+            EventManager.unregisterListener(listener);
+        }
+        for(Thread worker : workers) {
+            worker.join();
+        }
+
+        EventManager.unregisterListener(counter);
+        assertEquals(4000, calls.get());
+    }
+
+    @Test
+    void checkEventCanBeCalledAsync() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicInteger calls = new AtomicInteger();
+        Object listener = new Object() {
+            @EventHandler(priority = EventPriority.HIGHEST)
+            public void onCancel(TestEvent event) {
+                event.setCancelled(true);
+            }
+
+            @EventHandler
+            public void onSkipped(TestEvent event) {
+                calls.addAndGet(100);
+            }
+
+            @EventHandler(async = true, ignoreCancelled = true)
+            public void onAsync(TestEvent event) {
+                calls.incrementAndGet();
+            }
+        };
+        EventManager.registerListener(listener, executor);
+
+        TestEvent event = EventManager.callEventAsync(new TestEvent()).get(5, TimeUnit.SECONDS);
+        EventManager.unregisterListener(listener);
+        executor.shutdown();
+
+        assertTrue(event.isCancelled());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void checkEventBatchCanBeCalled() {
+        List<Integer> batches = new ArrayList<>();
+        AtomicInteger calls = new AtomicInteger();
+        Object listener = new Object() {
+            @EventHandler(priority = EventPriority.HIGHEST)
+            public void onSingle(TestEvent event) {
+                calls.incrementAndGet();
+                event.setCancelled(calls.get() % 2 == 0);
+            }
+
+            @EventHandler
+            public void onBatch(List<TestEvent> events) {
+                batches.add(events.size());
+            }
+        };
+        EventManager.registerListener(listener);
+
+        List<TestEvent> events = new ArrayList<>();
+        for(int i = 0; i < 10; i++) {
+            events.add(new TestEvent());
+        }
+        EventManager.callEvents(events);
+        EventManager.callEvent(new TestEvent());
+        EventManager.unregisterListener(listener);
+
+        assertEquals(11, calls.get());
+        assertEquals(List.of(5, 1), batches);
+    }
+
+    @Test
+    void checkEventPipeline() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        Object listener = new Object() {
+            @EventHandler
+            public void onTestEvent(TestEvent event) {
+                calls.incrementAndGet();
+            }
+        };
+        EventManager.registerListener(listener);
+
+        EventPipeline<TestEvent> pipeline = new EventPipeline<>("TestPipeline", TestEvent::new, 1024,
+                ProducerType.MULTI, WaitStrategy.yielding());
+        pipeline.start();
+        Thread[] producers = new Thread[4];
+        for(int i = 0; i < producers.length; i++) {
+            producers[i] = new Thread(() -> {
+                for(int j = 0; j < 10_000; j++) {
+                    pipeline.publish((event, sequence) -> event.setCancelled(false));
+                }
+            });
+            producers[i].start();
+        }
+        for(Thread producer : producers) {
+            producer.join();
+        }
+        pipeline.shutdown();
+
+        EventPipeline<TestEvent> blocking = new EventPipeline<>("BlockingPipeline", TestEvent::new, 4,
+                ProducerType.SINGLE, WaitStrategy.blocking());
+        blocking.start();
+        for(int i = 0; i < 1_000; i++) {
+            blocking.publish((event, sequence) -> event.setCancelled(false));
+        }
+        blocking.shutdown();
+        EventManager.unregisterListener(listener);
+        assertEquals(41_000, calls.get());
+
+        // Nobody consumes a stopped pipeline, so a full buffer fails instead of blocking forever.
+        for(int i = 0; i < 4; i++) {
+            blocking.publish((event, sequence) -> event.setCancelled(false));
+        }
+        boolean rejected = false;
+        try {
+            blocking.publish((event, sequence) -> event.setCancelled(false));
+        } catch (IllegalStateException exception) {
+            rejected = true;
+        }
+        assertTrue(rejected);
+
+        // A rejected multi producer claim doesn't take a slot, the consumer would wait for it forever.
+        EventPipeline<TestEvent> stopped = new EventPipeline<>("StoppedPipeline", TestEvent::new, 4,
+                ProducerType.MULTI, WaitStrategy.yielding());
+        for(int i = 0; i < 4; i++) {
+            stopped.publish((event, sequence) -> event.setCancelled(false));
+        }
+        rejected = false;
+        try {
+            stopped.publish((event, sequence) -> event.setCancelled(false));
+        } catch (IllegalStateException exception) {
+            rejected = true;
+        }
+        assertTrue(rejected);
+        assertEquals(4L, stopped.getBacklog());
+    }
+
+    @Test
+    void checkWeakListenerIsReleased() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        Object listener = new Object() {
+            @EventHandler
+            public void onTestEvent(TestEvent event) {
+                calls.incrementAndGet();
+            }
+        };
+        EventManager.registerWeakListener(listener);
+        EventManager.callEvent(new TestEvent());
+        assertEquals(1, calls.get());
+
+        WeakReference<Object> reference = new WeakReference<>(listener);
+        listener = null;
+        for(int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        EventManager.callEvent(new TestEvent());
+        EventManager.callEvents(List.of(new TestEvent(), new TestEvent()));
+        EventManager.callEventAsync(new TestEvent()).join();
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void checkEventMetrics() {
+        TestListener listener = new TestListener();
+        EventManager.registerListener(listener);
+        EventMetrics.setEnabled(true);
+        for(int i = 0; i < 10; i++) {
+            EventManager.callEvent(new TestEvent());
+        }
+        EventMetrics.Snapshot snapshot = EventMetrics.snapshot();
+        EventMetrics.setEnabled(false);
+        EventManager.unregisterListener(listener);
+
+        assertEquals(10L, (long) snapshot.getDispatches().get(TestEvent.class.getName()));
+        for(EventMetrics.HandlerStatistics statistics : snapshot.getHandlers()) {
+            logger.debug(statistics.getName() + " -> " + statistics.getInvocations() + " calls, p99 " + statistics.getP99Nanos() + "ns");
+            assertTrue(statistics.getInvocations() >= 10L);
+        }
+    }
+
     @Test
     void checkDateFormats() {
         Date date = new Date();
@@ -76,6 +339,168 @@ public class TestManager {
         logger.debug("====================> Ini <====================");
     }
 
+    @Test
+    void checkIniLexer() throws IOException {
+        IniController controller = new IniController();
+        controller.load("""
+                ; comment
+                top = level
+                [ window ]
+                title = "Open ; Utils"   # the title
+                path = C:\\\\tools\\ttabbed \\# not a comment
+                lines = first \\
+                  second
+                broken line without value
+                  spaced   =   value with spaces   ; comment
+                """);
+
+        assertEquals("level", controller.getValue("_NO_SECTION", "top", String.class));
+        assertEquals("Open ; Utils", controller.getValue("window", "title", String.class));
+        assertEquals("C:\\tools\ttabbed # not a comment", controller.getValue("window", "path", String.class));
+        assertEquals("first\n  second", controller.getValue("window", "lines", String.class));
+        assertEquals("value with spaces", controller.getValue("window", "spaced", String.class));
+        assertEquals(4, controller.getKeys("window").size());
+    }
+
+    @Test
+    void checkIniTypedValues() throws IOException {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            IniController controller = new IniController();
+            controller.load("""
+                    [values]
+                    ratio = 1.5
+                    count = 42
+                    version = 1.50
+                    name = open
+                    """);
+
+            Double ratio = controller.getValue("values", "ratio", Double.class);
+            assertEquals(1.5, ratio);
+            assertSame(ratio, controller.getValue("values", "ratio", Double.class));
+            assertEquals(42, (int) controller.getValue("values", "count", Integer.class));
+            assertEquals(42L, controller.getValue("values", "count"));
+            assertEquals("1.50", controller.getValue("values", "version", String.class));
+            assertEquals(1.5, controller.getSection("values").get("version"));
+            assertEquals("open", controller.getValue("values", "name"));
+
+            // A loaded controller is read-only, the typed caches can be filled by several threads.
+            IniController shared = new IniController();
+            shared.load("ratio = 2.5");
+            double sum = IntStream.range(0, 10_000).parallel()
+                    .mapToDouble(index -> shared.getValue("_NO_SECTION", "ratio", Double.class)).sum();
+            assertEquals(25_000.0, sum);
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    void checkIniKeyIndex() throws IOException {
+        IniController controller = new IniController();
+        controller.load("""
+                [first]
+                shared = one
+                [second]
+                shared = two
+                only = second
+                """);
+
+        assertEquals("one", controller.getValue("shared", String.class));
+        assertEquals("second", controller.getValue("only", String.class));
+        controller.putValue("late", "shared", "late");
+        assertEquals("one", controller.getValue("shared", String.class));
+        controller.removeSection("late");
+        controller.removeSection("first");
+        assertEquals("two", controller.getValue("shared", String.class));
+        controller.removeSectionKey("second", "only");
+        assertFalse(controller.hasKey("only"));
+        controller.putValue("third", "added", 3);
+        assertTrue(controller.hasKey("added"));
+        assertEquals(3, (int) controller.getValue("added", Integer.class));
+        assertNull(controller.getValue("missing", String.class));
+    }
+
+    @Test
+    void checkMappedFileLoading() throws IOException {
+        StringBuilder content = new StringBuilder("[gr\u00fc\u00dfe]\nname = M\u00fcller \u2764\nescaped = a\\tb\ncount = 42\n");
+        for(int index = 0; content.length() < ByteSequence.MAPPING_THRESHOLD; index++) {
+            content.append("filler").append(index).append(" = value # comment\n");
+        }
+        Path file = Files.createTempFile("open-utils", ".ini");
+        try {
+            Files.writeString(file, content);
+            IniController ini = new IniController();
+            ini.load(file.toFile());
+            assertEquals("M\u00fcller \u2764", ini.getValue("gr\u00fc\u00dfe", "name", String.class));
+            assertEquals("a\tb", ini.getValue("gr\u00fc\u00dfe", "escaped", String.class));
+            assertEquals(42L, (long) ini.getValue("gr\u00fc\u00dfe", "count", Long.class));
+            assertEquals("value", ini.getValue("gr\u00fc\u00dfe", "filler100", String.class));
+
+            // The mapping is released by load, so the same file can be written again.
+            try (OutputStream output = Files.newOutputStream(file)) {
+                ini.store(output, null);
+            }
+            IniController stored = new IniController();
+            stored.load(file.toFile());
+            assertEquals("M\u00fcller \u2764", stored.getValue("gr\u00fc\u00dfe", "name", String.class));
+            assertEquals("value", stored.getValue("gr\u00fc\u00dfe", "filler100", String.class));
+
+            // A released mapping can't be read anymore, neither by the sequence nor by its slices.
+            ByteSequence sequence = ByteSequence.load(file.toFile());
+            CharSequence slice = sequence.subSequence(0, 8);
+            sequence.close();
+            sequence.close();
+            assertTrue(sequence.isClosed());
+            boolean rejected = false;
+            try {
+                slice.charAt(0);
+            } catch (IllegalStateException exception) {
+                rejected = true;
+            }
+            assertTrue(rejected);
+
+            Files.writeString(file, "# comment\nname = M\u00fcller\nhash = a\\#b # comment\n");
+            PropertiesController properties = new PropertiesController();
+            properties.load(file.toFile());
+            assertEquals("M\u00fcller", properties.getValue("name", String.class));
+            assertEquals("a#b", properties.getValue("hash", String.class));
+            assertEquals(2, properties.getSize());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void checkParallelPropertiesLoading() throws IOException {
+        StringBuilder content = new StringBuilder("first = start\n");
+        for(int index = 0; index < 20000; index++) {
+            content.append("key").append(index % 5000).append(" = value").append(index).append(" # comment\n");
+        }
+        content.append("first = end\nnumber = 42\n");
+        Path file = Files.createTempFile("open-utils", ".properties");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Files.writeString(file, content);
+            PropertiesController sequential = new PropertiesController();
+            sequential.load(file.toFile());
+            PropertiesController parallel = new PropertiesController();
+            parallel.load(file.toFile(), pool);
+
+            assertEquals(5002, parallel.getSize());
+            assertEquals("end", parallel.getValue("first", String.class));
+            // The entries are a copy, the typed lookups keep working afterwards.
+            assertEquals("42", parallel.getEntries().get("number"));
+            assertEquals(Integer.valueOf(42), parallel.getValue("number", Integer.class));
+            assertEquals("value19999", parallel.getValue("key4999", String.class));
+            assertEquals(sequential.getProperties(), parallel.getProperties());
+        } finally {
+            pool.shutdown();
+            Files.deleteIfExists(file);
+        }
+    }
+
     @Test
     void checkTaskRunLater() throws InterruptedException {
         TaskTimer timer = TaskManager.runTaskLater(new Task() {
@@ -93,6 +518,318 @@ public class TestManager {
         TaskManager.flush(timer);
     }
 
+    @Test
+    void checkTaskRemovesItself() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        TaskTimer finished = TaskManager.runTaskLater(new Task() {
+            @Override
+            public void runTask() {
+                latch.countDown();
+            }
+        }, 10, TimeUnit.MILLISECONDS);
+        TaskTimer cancelled = TaskManager.runTaskLater(new Task() {
+            @Override
+            public void runTask() {
+            }
+        }, 10, TimeUnit.SECONDS);
+
+        assertTrue(TaskManager.existTask(cancelled.getName()));
+        cancelled.cancel();
+        assertFalse(TaskManager.existTask(cancelled.getName()));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        while (finished.isAlive()) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        assertNull(TaskManager.getByName(finished.getName()));
+        assertTrue(TaskManager.getNeedDumped().isEmpty());
+
+        // A periodic task stays registered until it's cancelled.
+        AtomicInteger runs = new AtomicInteger();
+        TaskTimer periodic = TaskManager.runTask(new Task() {
+            @Override
+            public void runTask() {
+                runs.incrementAndGet();
+            }
+        }, 0, 10, TimeUnit.MILLISECONDS);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertTrue(runs.get() >= 2);
+        assertTrue(TaskManager.existTask(periodic.getName()));
+        periodic.cancel();
+        assertFalse(TaskManager.existTask(periodic.getName()));
+        // A run which was already going when it was cancelled can still finish.
+        TimeUnit.MILLISECONDS.sleep(20);
+        int stopped = runs.get();
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertEquals(stopped, runs.get());
+    }
+
+    @Test
+    void checkTaskNamesAreUnique() {
+        Task task = new Task() {
+            @Override
+            public void runTask() {
+            }
+        };
+        TaskTimer named = TaskManager.runTaskLater("NamedTask", task, 10, TimeUnit.SECONDS);
+        boolean rejected = false;
+        try {
+            TaskManager.runTaskLater("NamedTask", task, 10, TimeUnit.SECONDS);
+        } catch (IllegalArgumentException exception) {
+            rejected = true;
+        }
+        assertTrue(rejected);
+        assertSame(named, TaskManager.getByName("NamedTask"));
+        named.cancel();
+
+        Set<String> names = new HashSet<>();
+        for(int i = 0; i < 20_000; i++) {
+            assertTrue(names.add(TaskManager.generateSerialID()));
+        }
+
+        // A name which was given by the code is skipped by the generated ones.
+        String last = TaskManager.generateSerialID();
+        String taken = "TaskTimer-" + (Long.parseLong(last.substring("TaskTimer-".length())) + 1);
+        TaskTimer manual = TaskManager.runTaskLater(taken, new Task() {
+            @Override
+            public void runTask() {
+            }
+        }, 10, TimeUnit.SECONDS);
+        TaskTimer generated = TaskManager.runTaskLater(new Task() {
+            @Override
+            public void runTask() {
+            }
+        }, 10, TimeUnit.SECONDS);
+        assertFalse(taken.equals(generated.getName()));
+        manual.cancel();
+        generated.cancel();
+    }
+
+    @Test
+    void checkTaskGroupLimit() throws InterruptedException {
+        TaskGroup group = new TaskGroup("blocking", 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(6);
+        for(int i = 0; i < 6; i++) {
+            TaskManager.runTaskLater(group, new Task() {
+                @Override
+                public void runTask() {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(50);
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    latch.countDown();
+                }
+            }, 10, TimeUnit.MILLISECONDS);
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        group.shutdown();
+        assertTrue(peak.get() <= 2);
+    }
+
+    @Test
+    void checkPeriodPolicySkipsMissed() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        PeriodTask task = new PeriodTask() {
+            @Override
+            public void runTask() {
+                if(runs.incrementAndGet() == 1) {
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(110);
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        task.setPolicy(PeriodPolicy.SKIP_MISSED);
+        TaskTimer timer = TaskManager.runTask(task, 0, 20, TimeUnit.MILLISECONDS);
+
+        TimeUnit.MILLISECONDS.sleep(200);
+        timer.cancel();
+        assertEquals(1, task.getOverruns());
+        assertTrue(task.getMissed() >= 4);
+        assertTrue(runs.get() <= 6);
+    }
+
+    @Test
+    void checkTaskMetrics() throws InterruptedException {
+        TaskMetrics.setEnabled(true);
+        TaskMetrics.registerMBean();
+        try {
+            CountDownLatch latch = new CountDownLatch(3);
+            for(int i = 0; i < 3; i++) {
+                boolean fail = i == 0;
+                TaskManager.runTaskLater(new Task() {
+                    @Override
+                    public void runTask() {
+                        latch.countDown();
+                        if(fail) {
+                            throw new IllegalStateException("Expected failure!");
+                        }
+                    }
+                }, 10, TimeUnit.MILLISECONDS);
+            }
+            PeriodTask periodic = new PeriodTask() {
+                @Override
+                public void runTask() {
+                }
+            };
+            TaskTimer timer = TaskManager.runTask("MeasuredTask", periodic, 0, 10, TimeUnit.MILLISECONDS);
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            TimeUnit.MILLISECONDS.sleep(50);
+            TaskMetrics.Snapshot snapshot = TaskMetrics.snapshot();
+            timer.cancel();
+
+            assertTrue(snapshot.getScheduled() >= 4);
+            assertTrue(snapshot.getGlobal().getExecutions() >= 4);
+            assertEquals(1, snapshot.getGlobal().getFailures());
+            assertTrue(snapshot.getTasks().stream().anyMatch(task -> task.getName().equals("MeasuredTask")));
+        } finally {
+            TaskMetrics.unregisterMBean();
+            TaskMetrics.setEnabled(false);
+        }
+    }
+
+    @Test
+    void checkRateLimiterAndDebounce() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(10, 5);
+        int granted = 0;
+        for(int i = 0; i < 20; i++) {
+            if(limiter.tryAcquire()) {
+                granted++;
+            }
+        }
+        assertEquals(5, granted);
+
+        AtomicInteger debounced = new AtomicInteger();
+        AtomicInteger throttled = new AtomicInteger();
+        Debouncer debouncer = new Debouncer(debounced::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+        Throttler throttler = new Throttler(throttled::incrementAndGet, 100, TimeUnit.MILLISECONDS);
+        for(int i = 0; i < 10; i++) {
+            debouncer.trigger();
+            throttler.trigger();
+        }
+        assertEquals(1, throttled.get());
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(1, debounced.get());
+        assertEquals(2, throttled.get());
+    }
+
+    @Test
+    void checkTaskJournalRecovers() throws Exception {
+        Path file = Files.createTempFile("tasks", ".journal");
+        AtomicInteger runs = new AtomicInteger();
+        Function<String, Task> factory = payload -> new Task() {
+            @Override
+            public void runTask() {
+                runs.incrementAndGet();
+            }
+        };
+        Path other = Files.createTempFile("other", ".journal");
+        try {
+            TaskJournal journal = new TaskJournal(file);
+            journal.registerType("count", factory);
+            assertEquals(0, journal.recover());
+            journal.runTaskLater("count", "soon", 10, TimeUnit.MILLISECONDS);
+            TaskTimer later = journal.runTaskLater("count", "later", 1, TimeUnit.HOURS);
+            TaskTimer cancelled = journal.runTaskLater("count", "cancelled", 1, TimeUnit.HOURS);
+
+            // A second journal hands out its own ids.
+            TaskJournal second = new TaskJournal(other);
+            second.registerType("count", factory);
+            second.recover();
+            TaskTimer foreign = second.runTaskLater("count", "other", 1, TimeUnit.HOURS);
+            assertFalse(foreign.getName().equals(later.getName()));
+            foreign.cancel();
+            second.close();
+
+            // Cancelling the timer removes the task from the journal too.
+            cancelled.cancel();
+            assertFalse(journal.isPending(cancelled.getName()));
+            TimeUnit.MILLISECONDS.sleep(200);
+            assertEquals(1, runs.get());
+            journal.close();
+            later.cancel();
+
+            // A line which was torn by a crash is skipped.
+            Files.writeString(file, "S\tJournal-torn#9\tcount\t0\tbGF0", StandardOpenOption.APPEND);
+
+            TaskJournal restarted = new TaskJournal(file);
+            restarted.registerType("count", factory);
+            assertEquals(1, restarted.recover());
+            assertTrue(restarted.isPending(later.getName()));
+            assertTrue(restarted.cancel(later.getName()));
+            restarted.close();
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(other);
+        }
+    }
+
+    @Test
+    void checkTaskGraph() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        TaskGraph graph = new TaskGraph()
+                .add("load", graphTask(order, "load"))
+                .add("left", graphTask(order, "left"), "load")
+                .add("right", graphTask(order, "right"), "load")
+                .add("merge", graphTask(order, "merge"), "left", "right");
+
+        graph.execute().get(5, TimeUnit.SECONDS);
+        assertEquals(4, order.size());
+        assertEquals("load", order.get(0));
+        assertEquals("merge", order.get(3));
+
+        boolean rejected = false;
+        try {
+            graph.add("broken", graphTask(order, "broken"), "unknown");
+        } catch (IllegalArgumentException exception) {
+            rejected = true;
+        }
+        assertTrue(rejected);
+    }
+
+    private Task graphTask(List<String> order, String name) {
+        return new Task() {
+            @Override
+            public void runTask() {
+                order.add(name);
+            }
+        };
+    }
+
+    @Test
+    void checkTimingWheelEngine()throws InterruptedException {
+        TaskEngine previous = TaskManager.setEngine(new TimingWheelTaskEngine(5, TimeUnit.MILLISECONDS, 64));
+        try {
+            AtomicInteger fired = new AtomicInteger();
+            for(int i = 0; i < 1000; i++) {
+                TaskTimer timer = TaskManager.runTaskLater(new Task() {
+                    @Override
+                    public void runTask() {
+                        fired.incrementAndGet();
+                    }
+                }, 100 + i % 300, TimeUnit.MILLISECONDS);
+                if(i % 2 == 0) {
+                    timer.cancel();
+                }
+            }
+
+            TimeUnit.MILLISECONDS.sleep(1000);
+            assertEquals(500, fired.get());
+        } finally {
+            TaskManager.setEngine(previous).shutdown();
+            TaskManager.cleanup();
+        }
+    }
+
     @Test
     void checkRunTask() throws InterruptedException {
         TaskTimer timer = TaskManager.runTask(new PeriodTask() {